@@ -0,0 +1,24 @@
+package com.anas.jsimpletexteditor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * JMH's main, with the gc profiler on unless other profilers are asked for, so the
+ * allocation rate is reported alongside the latency.
+ */
+public class BenchmarkMain {
+    private static final List<String> NO_RUN = List.of("-h", "-l", "-lp", "-lprof", "-lrf");
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = Arrays.asList(args);
+        if (arguments.contains("-prof") || arguments.stream().anyMatch(NO_RUN::contains)) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        String[] withGc = Arrays.copyOf(args, args.length + 2);
+        withGc[args.length] = "-prof";
+        withGc[args.length + 1] = "gc";
+        org.openjdk.jmh.Main.main(withGc);
+    }
+}
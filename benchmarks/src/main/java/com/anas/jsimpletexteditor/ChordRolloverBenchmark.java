@@ -0,0 +1,165 @@
+package com.anas.jsimpletexteditor;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.event.KeyEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/*
+ * Replays a made-up session of random words typed at wpm words a minute (five characters
+ * each, counting the space), with every chord rolled into the next: its keys are let go of
+ * from just before the next chord is pressed until after, and a key in both is let go of just
+ * in time. The keys of a chord go down within 15ms of each other. The session is the same for
+ * the same seed, and is checked, before the benchmark runs, to come out as the same chords
+ * typed one after another do, with the text area splitting rolled chords, which it doesn't by
+ * default. With preview, each key down also decodes the chord so far for
+ * the chord preview, which is what that costs.
+ *
+ * Run with the main below to write the session out, for ChordSessionReplayer, eg:
+ *     java -cp benchmarks.jar com.anas.jsimpletexteditor.ChordRolloverBenchmark rollover.chords 150
+ * and replay it with --rollover.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class ChordRolloverBenchmark {
+    private static final long SEED = 150;
+    // F D S J K L for dots 1 to 6.
+    private static final int[] DOT_KEYS = {KeyEvent.VK_F, KeyEvent.VK_D, KeyEvent.VK_S, KeyEvent.VK_J, KeyEvent.VK_K, KeyEvent.VK_L};
+    // The dots of a to z.
+    private static final int[] LETTERS = {
+            0b1, 0b11, 0b1001, 0b11001, 0b10001, 0b1011, 0b11011, 0b10011, 0b1010, 0b11010,
+            0b101, 0b111, 0b1101, 0b11101, 0b10101, 0b1111, 0b11111, 0b10111, 0b1110, 0b11110,
+            0b100101, 0b100111, 0b111010, 0b101101, 0b111101, 0b110101};
+    private static final int SPACE = -1;
+
+    @Param({"150", "180"})
+    public int wpm;
+
+    @Param({"150"})
+    public int words;
+
+    @Param({"false", "true"})
+    public boolean preview;
+
+    private ChordSessionReplayer session;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Logger.getLogger("").setLevel(java.util.logging.Level.OFF);
+        int[] chords = chords(words, SEED);
+        session = ChordSessionReplayer.read(session(chords, wpm, true));
+        check(chords, wpm, session);
+    }
+
+    @Benchmark
+    public long replay() throws InterruptedException {
+        return session.replay(textArea(preview), false).checksum();
+    }
+
+    static TextAreaBraille textArea(boolean preview) {
+        TextAreaBraille textArea = new TextAreaBraille(false);
+        textArea.getChordAssembler().setRollover(true);
+        textArea.setChordPreview(preview);
+        return textArea;
+    }
+
+    // Random words of 2 to 7 letters, each followed by a space.
+    static int[] chords(int words, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Integer> chords = new ArrayList<>();
+        for (int word = 0; word < words; word++) {
+            for (int letters = 2 + random.nextInt(6); letters > 0; letters--) {
+                chords.add(LETTERS[random.nextInt(LETTERS.length)]);
+            }
+            chords.add(SPACE);
+        }
+        return chords.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private record Key(long millis, int keyCode, boolean up) {}
+
+    // The chords as a recorded session, rolled one into the next or typed one after another.
+    static byte[] session(int[] chords, int wpm, boolean rolled) {
+        Random random = new Random(SEED);
+        long period = 60_000 / (wpm * 5L);
+        ArrayList<Key> keys = new ArrayList<>();
+        long start = 0;
+        for (int chord : chords) {
+            int[] keyCodes = (chord == SPACE) ? new int[] {KeyEvent.VK_SPACE} : keyCodes(chord);
+            long[] down = new long[keyCodes.length];
+            for (int i = 0; i < keyCodes.length; i++) {
+                down[i] = start + random.nextInt(16);
+            }
+            // A key still down from the chord before is let go of just before.
+            for (int i = 0; i < keyCodes.length; i++) {
+                for (int k = 0; k < keys.size(); k++) {
+                    Key key = keys.get(k);
+                    if (key.up() && key.keyCode() == keyCodes[i] && key.millis() >= down[i]) {
+                        keys.set(k, new Key(down[i] - 1, key.keyCode(), true));
+                    }
+                }
+            }
+            for (int i = 0; i < keyCodes.length; i++) {
+                long hold = rolled ? period * 95 / 100 + random.nextInt((int) (period * 35 / 100)) : period / 2;
+                keys.add(new Key(down[i], keyCodes[i], false));
+                keys.add(new Key(down[i] + hold, keyCodes[i], true));
+            }
+            start += period;
+        }
+        keys.sort(Comparator.comparingLong(Key::millis));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ChordSessionRecorder recorder = new ChordSessionRecorder(out, KeyboardLayouts.DEFAULT, 0)) {
+            for (Key key : keys) recorder.key(key.keyCode(), key.up(), TimeUnit.MILLISECONDS.toNanos(key.millis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int[] keyCodes(int dots) {
+        return IntStream.range(0, DOT_KEYS.length).filter(dot -> (dots & (1 << dot)) != 0)
+                .map(dot -> DOT_KEYS[dot]).toArray();
+    }
+
+    // That the rolled session comes out as the chords typed apart do.
+    static ChordSessionReplayer.Result check(int[] chords, int wpm, ChordSessionReplayer rolled) {
+        try {
+            ChordSessionReplayer.Result apart = ChordSessionReplayer.read(session(chords, wpm, false)).replay(textArea(false), false);
+            ChordSessionReplayer.Result result = rolled.replay(textArea(false), false);
+            if (apart.chords() != chords.length || result.chords() != chords.length || result.checksum() != apart.checksum()) {
+                throw new IllegalStateException("Rolled at " + wpm + " wpm: " + result + ", typed apart: " + apart
+                        + ", " + chords.length + " chords typed");
+            }
+            return result;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Logger.getLogger("").setLevel(java.util.logging.Level.OFF);
+        Path path = Path.of(args.length > 0 ? args[0] : "rollover.chords");
+        int wpm = args.length > 1 ? Integer.parseInt(args[1]) : 150;
+        int[] chords = chords(150, SEED);
+        byte[] bytes = session(chords, wpm, true);
+        Files.write(path, bytes);
+        ChordSessionReplayer session = ChordSessionReplayer.read(bytes);
+        System.out.println(path + ": " + chords.length + " chords rolled at " + wpm + " wpm, "
+                + session.getEventCount() + " key events");
+        System.out.println(check(chords, wpm, session));
+    }
+}
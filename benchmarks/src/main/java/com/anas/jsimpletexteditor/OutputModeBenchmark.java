@@ -0,0 +1,85 @@
+package com.anas.jsimpletexteditor;
+
+import com.anas.jsimpletexteditor.braille.LockState;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.text.DefaultCaret;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+ * Latency of the two TextAreaBraille output modes, typed through processKeyEvent, per
+ * sequence with its lock chords in front. "k" then space expands to the wordsign
+ * "knowledge ". Shift40 d between spaces types "ound" and then replaces it with a delta,
+ * four backspaces and a letter. In KEY_EVENTS mode every character goes through
+ * sendKeyEvents, so a lock that makes the output longer, eg: SHIFT_WORD, costs more there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class OutputModeBenchmark {
+    // F D S J K L A ; for pins 1 to 8.
+    private static final int[] PIN_KEYS = {70, 68, 83, 74, 75, 76, 65, 59};
+    private static final int SPACE = -1;
+
+    private static final int[] KNOWLEDGE = {5, SPACE};
+    private static final int[] GREEK_END_SIGN = {40, 25, SPACE};
+
+    @Param({"DOCUMENT", "KEY_EVENTS"})
+    public TextAreaBraille.OutputMode outputMode;
+
+    @Param
+    public LockState lock;
+
+    private TextAreaBraille textArea;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Logger.getLogger("").setLevel(java.util.logging.Level.OFF);
+        textArea = new TextAreaBraille();
+        textArea.setOutputMode(outputMode);
+        // Off the EDT the caret only follows edits when told to.
+        ((DefaultCaret) textArea.getCaret()).setUpdatePolicy(DefaultCaret.ALWAYS_UPDATE);
+    }
+
+    @Benchmark
+    public int longWordsign() {
+        type(KNOWLEDGE);
+        return textArea.getCaretPosition();
+    }
+
+    @Benchmark
+    public int greekEndSign() {
+        type(GREEK_END_SIGN);
+        return textArea.getCaretPosition();
+    }
+
+    private void type(int[] chords) {
+        for (int chord : lock.chords()) chord(chord);
+        for (int chord : chords) {
+            if (chord == SPACE) {
+                key(KeyEvent.KEY_PRESSED, KeyEvent.VK_SPACE);
+                key(KeyEvent.KEY_RELEASED, KeyEvent.VK_SPACE);
+                continue;
+            }
+            chord(chord);
+        }
+    }
+
+    private void chord(int chord) {
+        for (int pin = 0; pin < PIN_KEYS.length; pin++) {
+            if ((chord & (1 << pin)) != 0) key(KeyEvent.KEY_PRESSED, PIN_KEYS[pin]);
+        }
+        for (int pin = 0; pin < PIN_KEYS.length; pin++) {
+            if ((chord & (1 << pin)) != 0) key(KeyEvent.KEY_RELEASED, PIN_KEYS[pin]);
+        }
+    }
+
+    private void key(int id, int keyCode) {
+        textArea.processKeyEvent(new KeyEvent(textArea, id, 0, 0, keyCode, KeyEvent.CHAR_UNDEFINED));
+    }
+}
@@ -0,0 +1,117 @@
+package com.anas.jsimpletexteditor;
+
+import com.anas.jsimpletexteditor.files.TextFile;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Editing a large file in a PieceTableDocument, read by FileLoader, against a PlainDocument
+ * over the GapContent, filled as the editor used to, through TextFile.getText. Edits at
+ * random places move the gap across the file, where typing in one place doesn't. load reads
+ * the file afresh.
+ *
+ * The file is random words in lines of up to 100 characters, 100 MB by default, eg: for a
+ * quick look, -p megabytes=10.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class PieceTableBenchmark {
+    public enum Content { PIECE_TABLE, GAP }
+
+    @Param({"PIECE_TABLE", "GAP"})
+    public Content content;
+
+    @Param({"100"})
+    public int megabytes;
+
+    private Path file;
+    private Document document;
+    private final Random random = new Random(42);
+    private final Segment segment = new Segment();
+    private int typingAt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BadLocationException {
+        file = Files.createTempFile("piece-table-benchmark", ".txt");
+        Random words = new Random(1);
+        long size = megabytes * 1024L * 1024L;
+        try (BufferedWriter out = Files.newBufferedWriter(file, Charset.defaultCharset())) {
+            for (long written = 0, line = 0; written < size; ) {
+                int length = 1 + words.nextInt(8);
+                for (int i = 0; i < length; i++) out.write('a' + words.nextInt(26));
+                written += length + 1;
+                line += length + 1;
+                if (line > 100 - 9) {
+                    out.write('\n');
+                    line = 0;
+                } else {
+                    out.write(' ');
+                }
+            }
+        }
+        document = open();
+        typingAt = document.getLength() / 2;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private Document open() throws BadLocationException {
+        if (content == Content.PIECE_TABLE) return FileLoader.load(file.toFile());
+        Document document = new PlainDocument();
+        document.insertString(0, new TextFile(file.toString()).getText(), null);
+        return document;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int load() throws BadLocationException {
+        return open().getLength();
+    }
+
+    // An insert at one random place and a remove at another, so the size stays the same.
+    @Benchmark
+    public int editAtRandom() throws BadLocationException {
+        document.insertString(random.nextInt(document.getLength()), "a", null);
+        document.remove(random.nextInt(document.getLength()), 1);
+        return document.getLength();
+    }
+
+    // A word typed and backspaced in one place.
+    @Benchmark
+    public int typeInPlace() throws BadLocationException {
+        for (int i = 0; i < 5; i++) document.insertString(typingAt + i, "w", null);
+        for (int i = 5; i > 0; i--) document.remove(typingAt + i - 1, 1);
+        return document.getLength();
+    }
+
+    // A random line, as it's painted.
+    @Benchmark
+    public int readLine() throws BadLocationException {
+        Element root = document.getDefaultRootElement();
+        Element line = root.getElement(random.nextInt(root.getElementCount()));
+        document.getText(line.getStartOffset(), line.getEndOffset() - line.getStartOffset(), segment);
+        return segment.count;
+    }
+}
@@ -0,0 +1,98 @@
+package com.anas.jsimpletexteditor.braille;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/*
+ * The decoder's hot paths, each typed as one sequence under a lock state and ended by a
+ * space, so an operation is the lock chords, the sequence and the space. lockOnly types
+ * just the lock and the space, to take away from the others.
+ *
+ * Run with the gc profiler (the default from BenchmarkMain) for the allocation per chord.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BrailleDecoderBenchmark {
+    private static final int SPACE = BrailleDecoder.SPACE;
+
+    private static final int[] LETTER = {1};                    // a
+    private static final int[] GREEK = {40, 1};                 // alpha, behind SHIFT40
+    private static final int[] DIGIT_GREEK = {60, 40, 1};       // alpha, behind DIGIT and SHIFT40
+    private static final int[] MODIFIER = {24, 12, 1};          // a acute
+    private static final int[] LIGATURE = {30, 24, 22, 19};     // t and h tied
+    private static final int[] WORDSIGN = {5};                  // k, expanded to knowledge by the space
+    private static final int[] GREEK_END_SIGN = {40, 25};       // ound, replaced by delta at the space
+    private static final int[] FAILED_SEQUENCE = {24, 50};      // no accented full stop, so retried as "."
+
+    @Param
+    public LockState lock;
+
+    private BrailleDecoder decoder;
+    private int written;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // The decoder logs every chord.
+        Logger.getLogger("").setLevel(java.util.logging.Level.OFF);
+        // Only counts, so the output costs nothing.
+        decoder = new BrailleDecoder((backspaces, inserted) -> written += inserted.length() - backspaces);
+    }
+
+    @Benchmark
+    public int lockOnly() {
+        return type();
+    }
+
+    @Benchmark
+    public int letter() {
+        return type(LETTER);
+    }
+
+    @Benchmark
+    public int greek() {
+        return type(GREEK);
+    }
+
+    @Benchmark
+    public int digitGreek() {
+        return type(DIGIT_GREEK);
+    }
+
+    @Benchmark
+    public int modifier() {
+        return type(MODIFIER);
+    }
+
+    @Benchmark
+    public int ligature() {
+        return type(LIGATURE);
+    }
+
+    @Benchmark
+    public int wordsign() {
+        return type(WORDSIGN);
+    }
+
+    @Benchmark
+    public int greekEndSign() {
+        return type(GREEK_END_SIGN);
+    }
+
+    @Benchmark
+    public int failedSequence() {
+        return type(FAILED_SEQUENCE);
+    }
+
+    private int type(int... sequence) {
+        for (int chord : lock.chords()) decoder.chord(chord);
+        for (int chord : sequence) decoder.chord(chord);
+        decoder.chord(SPACE);
+        return written;
+    }
+}
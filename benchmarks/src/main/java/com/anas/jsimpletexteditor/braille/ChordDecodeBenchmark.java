@@ -0,0 +1,70 @@
+package com.anas.jsimpletexteditor.braille;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Chord lookup through the old boxed HashMap tree against the compiled BrailleTrie.
+ * Both walk the same pin code sequences: a letter, a Greek letter behind SHIFT40,
+ * a modified letter and a digit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChordDecodeBenchmark {
+    private static final int[][] SEQUENCES = {
+            {1},            // a
+            {40, 1},        // alpha
+            {24, 12, 1},    // a acute
+            {60, 3},        // 2
+            {16, 11},       // father
+            {32},           // shift on its own, an overflow
+    };
+
+    private int[][] sequences;
+
+    @Setup
+    public void setUp() {
+        sequences = SEQUENCES;
+        // Force the tables to build outside of the measurement.
+        BrailleTables.BRAILLE_TRIE.size();
+    }
+
+    @Benchmark
+    public int hashMapWalk() {
+        int found = 0;
+        for (int[] sequence : sequences) {
+            HashMap<Integer, MapData> map = BrailleTables.BRAILLE_MAP;
+            MapData md = null;
+            for (int i = 0; i < sequence.length && map != null; i++) {
+                md = map.get(sequence[i]);
+                if (md == null || md.isConcrete()) break;
+                map = md.map;
+            }
+            if (md != null) found += md.getType();
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int trieWalk() {
+        BrailleTrie trie = BrailleTables.BRAILLE_TRIE;
+        int found = 0;
+        for (int[] sequence : sequences) {
+            int node = BrailleTrie.ROOT;
+            MapData md = null;
+            for (int i = 0; i < sequence.length && trie.branches(node); i++) {
+                node = trie.child(node, sequence[i]);
+                md = trie.data(node);
+                if (md == null || md.isConcrete()) break;
+            }
+            if (md != null) found += md.getType();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,24 @@
+package com.anas.jsimpletexteditor.braille;
+
+/*
+ * The lock states the benchmarks type under, as the chords that set them.
+ * Word locks last until the next space, so each typed sequence sets its lock again.
+ */
+public enum LockState {
+    NONE(),
+    SHIFT(BrailleConstants.SHIFT),
+    SHIFT_WORD(BrailleConstants.SHIFT, BrailleConstants.SHIFT),
+    DIGIT(BrailleConstants.DIGIT),
+    DIGIT_WORD(BrailleConstants.DIGIT, BrailleConstants.DIGIT),
+    GRADE1(BrailleConstants.GRADE1);
+
+    private final int[] chords;
+
+    LockState(int... chords) {
+        this.chords = chords;
+    }
+
+    public int[] chords() {
+        return chords;
+    }
+}
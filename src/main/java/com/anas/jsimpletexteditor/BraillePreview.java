@@ -0,0 +1,130 @@
+package com.anas.jsimpletexteditor;
+
+import com.anas.jsimpletexteditor.braille.BrailleTranslator;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import java.beans.PropertyChangeListener;
+import java.io.Serial;
+
+/**
+ * Unicode braille for the text of a text area, kept up to date as it's edited.
+ * The preview has one line per line of the text, and only the lines an edit touches are translated again.
+ */
+public class BraillePreview extends JScrollPane implements DocumentListener {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final JTextArea previewArea;
+    private final PropertyChangeListener documentChangeListener = e -> {
+        if (e.getOldValue() instanceof Document oldDocument) oldDocument.removeDocumentListener(this);
+        if (e.getNewValue() instanceof Document newDocument) newDocument.addDocumentListener(this);
+        translateAll();
+    };
+    private JTextArea source;
+
+    public BraillePreview() {
+        super();
+        previewArea = new JTextArea();
+        previewArea.setEditable(false);
+        previewArea.setLineWrap(true);
+        super.setViewportView(previewArea);
+    }
+
+    public JTextArea getPreviewArea() {
+        return previewArea;
+    }
+
+    /**
+     * Follows the text of a text area, until detached.
+     * @param source the text area to preview
+     */
+    public void attach(JTextArea source) {
+        detach();
+        this.source = source;
+        source.getDocument().addDocumentListener(this);
+        source.addPropertyChangeListener("document", documentChangeListener);
+        translateAll();
+    }
+
+    public void detach() {
+        if (source == null) return;
+        source.getDocument().removeDocumentListener(this);
+        source.removePropertyChangeListener("document", documentChangeListener);
+        source = null;
+    }
+
+    private void translateAll() {
+        Element root = source.getDocument().getDefaultRootElement();
+        previewArea.setText(translate(0, root.getElementCount()));
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        update(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        update(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // Attributes only, the text is the same.
+    }
+
+    // Replaces the preview lines of the lines the edit changed.
+    private void update(DocumentEvent e) {
+        Element root = e.getDocument().getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int index, removed, added;
+        if (change == null) {
+            // Within a line.
+            index = root.getElementIndex(e.getOffset());
+            removed = added = 1;
+        } else {
+            index = change.getIndex();
+            removed = change.getChildrenRemoved().length;
+            added = change.getChildrenAdded().length;
+        }
+
+        Document preview = previewArea.getDocument();
+        Element previewRoot = preview.getDefaultRootElement();
+        if (index + removed > previewRoot.getElementCount()) {
+            // Out of step with the text, so start again.
+            translateAll();
+            return;
+        }
+        int start = previewRoot.getElement(index).getStartOffset();
+        int end = Math.min(previewRoot.getElement(index + removed - 1).getEndOffset(), preview.getLength());
+        try {
+            preview.remove(start, end - start);
+            preview.insertString(start, translate(index, index + added), null);
+        } catch (BadLocationException ex) {
+            translateAll();
+        }
+    }
+
+    // The preview of the lines from, up to but not including, to, each with its line break.
+    private String translate(int from, int to) {
+        Document document = source.getDocument();
+        Element root = document.getDefaultRootElement();
+        BrailleTranslator translator = BrailleTranslator.getInstance();
+        StringBuilder braille = new StringBuilder();
+        try {
+            for (int i = from; i < to; i++) {
+                Element line = root.getElement(i);
+                int start = line.getStartOffset();
+                int end = Math.min(line.getEndOffset(), document.getLength());
+                braille.append(translator.toUnicode(document.getText(start, end - start)));
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        return braille.toString();
+    }
+}
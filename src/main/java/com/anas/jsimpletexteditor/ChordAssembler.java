@@ -0,0 +1,191 @@
+package com.anas.jsimpletexteditor;
+
+import java.util.Arrays;
+
+/**
+ * Makes chords from key presses and releases by their times, as KeyEvent.getWhen gives them,
+ * so chords rolled one into the next come apart the same way every time.
+ * <p>
+ * A chord is the pins pressed within the press window of its first, and is complete when one
+ * of them is released. A pin pressed later than that while the chord's still down is the
+ * start of the next chord, if the chord is released within the overlap window after it, as
+ * when rolling from one chord to the next; otherwise it's a slow chord, and the pin is in it.
+ * Pins still down once their chord is complete belong to it, and releasing them does nothing.
+ * <p>
+ * The keys that aren't pins (KeyboardLayout.SPACE and so on) are output when released, or
+ * as a chord pressed after them is output, and in the order they and the chords were pressed.
+ * A press window of 0, the default, puts every pin pressed before a release in the chord, as
+ * chords were always typed: splitting is for those who roll, as a slightly staggered chord
+ * pressed slower than the press window comes apart in two.
+ */
+public class ChordAssembler {
+    public static final int DEFAULT_PRESS_WINDOW = Integer.getInteger("jsimpletexteditor.chordPressWindow", 0);
+    public static final int DEFAULT_OVERLAP_WINDOW = Integer.getInteger("jsimpletexteditor.chordOverlapWindow", 0);
+    // The windows setRollover sets. Rolling at 150 to 180 wpm, a chord every 80 to 67ms with
+    // its keys down within 15ms of each other and held 95 to 130% of that, as in
+    // ChordRolloverBenchmark: the press window's well past the spread of a chord's keys and
+    // short of the next chord, and the overlap window's past the longest hold into the next.
+    public static final int ROLLOVER_PRESS_WINDOW = 50;
+    public static final int ROLLOVER_OVERLAP_WINDOW = 100;
+    private static final int SPECIAL_KEYS = 4;
+
+    public interface Output {
+        // The pins, or one of the KeyboardLayout keys that aren't pins.
+        void chord(int key);
+    }
+
+    private final Output output;
+    private long pressWindow = DEFAULT_PRESS_WINDOW;
+    private long overlapWindow = DEFAULT_OVERLAP_WINDOW;
+
+    // Pins down, whichever chord they're in.
+    private int down;
+    // The chord being pressed, and when it was started.
+    private int chord;
+    private long chordStart;
+    // Pins pressed too late for the chord, and when the first was.
+    private int next;
+    private long nextStart;
+    // When each key that isn't a pin was pressed, while it's down and not yet output, or -1.
+    private final long[] specialDown = {-1, -1, -1, -1};
+
+    // From first press to output, in milliseconds of event time.
+    private long chords;
+    private long totalLatency;
+    private long maxLatency;
+
+    public ChordAssembler(Output output) {
+        this.output = output;
+    }
+
+    public void press(int key, long when) {
+        int special = special(key);
+        if (special >= 0) {
+            if (specialDown[special] < 0) specialDown[special] = when;
+            return;
+        }
+        int pins = key & KeyboardLayout.PINS;
+        // Or it's repeating.
+        if (pins == 0 || (down & pins) == pins) return;
+        pins &= ~down;
+        down |= pins;
+        if (chord == 0) {
+            chord = pins;
+            chordStart = when;
+        } else if (pressWindow > 0 && when - chordStart > pressWindow) {
+            if (next == 0) nextStart = when;
+            next |= pins;
+        } else {
+            chord |= pins;
+        }
+    }
+
+    public void release(int key, long when) {
+        int special = special(key);
+        if (special >= 0) {
+            long pressed = specialDown[special];
+            if (pressed < 0) return;
+            if (chord != 0 && chordStart <= pressed) complete(when);
+            specialDown[special] = -1;
+            output.chord(key);
+            return;
+        }
+        int pins = key & KeyboardLayout.PINS & down;
+        if (pins == 0) return;
+        down &= ~pins;
+        if ((pins & (chord | next)) == 0) return;
+        complete(when);
+        // The pin was the next chord's, which is complete too.
+        if ((pins & chord) != 0) complete(when);
+    }
+
+    // Outputs the chord, and the keys pressed before it, and moves on to the next chord.
+    private void complete(long when) {
+        if (next != 0 && when - nextStart > overlapWindow) {
+            chord |= next;
+            next = 0;
+        }
+        for (int special = 0; special < SPECIAL_KEYS; special++) {
+            if (specialDown[special] >= 0 && specialDown[special] < chordStart) {
+                specialDown[special] = -1;
+                output.chord(KeyboardLayout.SPACE << special);
+            }
+        }
+        long latency = when - chordStart;
+        chords++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+        int pins = chord;
+        chord = next;
+        chordStart = nextStart;
+        next = 0;
+        output.chord(pins);
+    }
+
+    private static int special(int key) {
+        return switch (key) {
+            case KeyboardLayout.SPACE -> 0;
+            case KeyboardLayout.BACKSPACE -> 1;
+            case KeyboardLayout.ENTER -> 2;
+            case KeyboardLayout.TAB -> 3;
+            default -> -1;
+        };
+    }
+
+    // Forgets the keys down, as when the keys may mean other pins.
+    public void reset() {
+        down = 0;
+        chord = 0;
+        next = 0;
+        Arrays.fill(specialDown, -1);
+    }
+
+    public boolean isRollover() {
+        return pressWindow > 0;
+    }
+
+    // Splits rolled chords with the ROLLOVER windows, or not at all.
+    public void setRollover(boolean rollover) {
+        pressWindow = rollover ? ROLLOVER_PRESS_WINDOW : 0;
+        overlapWindow = rollover ? ROLLOVER_OVERLAP_WINDOW : 0;
+    }
+
+    public long getPressWindow() {
+        return pressWindow;
+    }
+
+    public void setPressWindow(long pressWindow) {
+        this.pressWindow = pressWindow;
+    }
+
+    public long getOverlapWindow() {
+        return overlapWindow;
+    }
+
+    public void setOverlapWindow(long overlapWindow) {
+        this.overlapWindow = overlapWindow;
+    }
+
+    // The pins of the chord being pressed, as it would be output if released now, or 0.
+    public int getPendingChord() {
+        return chord;
+    }
+
+    // When the pending chord's first pin was pressed.
+    public long getPendingChordStart() {
+        return chordStart;
+    }
+
+    public long getChordCount() {
+        return chords;
+    }
+
+    // The mean time from a chord's first press until it's output, in milliseconds.
+    public double getMeanLatency() {
+        return (chords == 0) ? 0 : (double) totalLatency / chords;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+}
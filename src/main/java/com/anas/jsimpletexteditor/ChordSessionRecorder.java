@@ -0,0 +1,106 @@
+package com.anas.jsimpletexteditor;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Records the key downs and ups a TextAreaBraille sees, for ChordSessionReplayer.
+ * <p>
+ * The log is a header (magic, version, the start in epoch milliseconds, the name of the
+ * keyboard layout as a varint length and UTF-8) followed by one
+ * event per key: its key code shifted left one with the low bit set for a key up, then the
+ * microseconds since the event before, both as unsigned varints. So most events take three
+ * bytes. Each key up is flushed, so a session survives the editor being killed.
+ */
+public class ChordSessionRecorder implements Closeable {
+    static final int MAGIC = 0x43485244; // CHRD
+    static final int VERSION = 2;
+
+    private final OutputStream out;
+    private long lastNanos;
+
+    // The keys are read through the layout named, which replay looks up in KeyboardLayouts.
+    public ChordSessionRecorder(OutputStream out, String layout) throws IOException {
+        this(out, layout, System.nanoTime());
+    }
+
+    // Started at the time given, as System.nanoTime would.
+    public ChordSessionRecorder(OutputStream out, String layout, long nanos) throws IOException {
+        this.out = new BufferedOutputStream(out);
+        this.lastNanos = nanos;
+        writeInt(MAGIC);
+        this.out.write(VERSION);
+        writeVarint(System.currentTimeMillis());
+        byte[] name = layout.getBytes(StandardCharsets.UTF_8);
+        writeVarint(name.length);
+        this.out.write(name);
+        this.out.flush();
+    }
+
+    /**
+     * Starts a new log in the directory given, named after the time.
+     * @param directory where the sessions are kept
+     * @param layout the name of the keyboard layout the keys are typed on
+     * @return the recorder writing to it
+     * @throws IOException if it can't be created
+     */
+    public static ChordSessionRecorder create(Path directory, String layout) throws IOException {
+        Files.createDirectories(directory);
+        String name = "session-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path path = directory.resolve(name + ".chords");
+        for (int i = 2; Files.exists(path); i++) {
+            path = directory.resolve(name + "-" + i + ".chords");
+        }
+        return new ChordSessionRecorder(Files.newOutputStream(path), layout);
+    }
+
+    public synchronized void keyDown(int keyCode) throws IOException {
+        write(keyCode, false, System.nanoTime());
+    }
+
+    public synchronized void keyUp(int keyCode) throws IOException {
+        write(keyCode, true, System.nanoTime());
+        out.flush();
+    }
+
+    /**
+     * Logs a key at the time given, as System.nanoTime would, for a session made up rather
+     * than typed.
+     */
+    public synchronized void key(int keyCode, boolean up, long nanos) throws IOException {
+        write(keyCode, up, nanos);
+    }
+
+    private void write(int keyCode, boolean up, long now) throws IOException {
+        writeVarint(((long) keyCode << 1) | (up ? 1 : 0));
+        writeVarint((now - lastNanos) / 1000);
+        lastNanos = now;
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,200 @@
+package com.anas.jsimpletexteditor;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.DefaultCaret;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Feeds a session logged by ChordSessionRecorder back into a TextAreaBraille, at the speed
+ * it was typed or as fast as possible, and reports how fast it went and a checksum of the text.
+ * <p>
+ * Replay runs on the calling thread against a text area that isn't shown, so needs no
+ * display, eg: {@code java -Djava.awt.headless=true -cp ... com.anas.jsimpletexteditor.ChordSessionReplayer
+ * session.chords [--real-time] [--preview] [--rollover] [--layout=layout.properties]}, the
+ * layout being loaded for a session typed on one that isn't built in.
+ */
+public class ChordSessionReplayer {
+    private final int[] events;   // key code << 1, | 1 for a key up
+    private final long[] micros;  // since the start
+    private final String layout;
+
+    private ChordSessionReplayer(int[] events, long[] micros, String layout) {
+        this.events = events;
+        this.micros = micros;
+        this.layout = layout;
+    }
+
+    public static ChordSessionReplayer read(Path path) throws IOException {
+        return read(Files.readAllBytes(path));
+    }
+
+    public static ChordSessionReplayer read(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (bytes.length < 5 || in.getInt() != ChordSessionRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a chord session");
+        }
+        int version = in.get();
+        if (version != 1 && version != ChordSessionRecorder.VERSION) {
+            throw new IllegalArgumentException("Chord session version " + version + ", expected " + ChordSessionRecorder.VERSION);
+        }
+        readVarint(in); // When it was recorded.
+        // Those of version 1 were typed before there was a choice of layout.
+        String layout = KeyboardLayouts.DEFAULT;
+        if (version > 1) {
+            long length = readVarint(in);
+            if (length > in.remaining()) throw new IllegalArgumentException("Truncated chord session");
+            byte[] name = new byte[(int) length];
+            in.get(name);
+            layout = new String(name, StandardCharsets.UTF_8);
+        }
+        int[] events = new int[bytes.length / 2];
+        long[] micros = new long[bytes.length / 2];
+        int count = 0;
+        long time = 0;
+        while (in.hasRemaining()) {
+            events[count] = (int) readVarint(in);
+            time += readVarint(in);
+            micros[count++] = time;
+        }
+        return new ChordSessionReplayer(Arrays.copyOf(events, count), Arrays.copyOf(micros, count), layout);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (!in.hasRemaining() || shift > 63) throw new IllegalArgumentException("Truncated chord session");
+            int b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    public int getEventCount() {
+        return events.length;
+    }
+
+    // The name of the keyboard layout it was typed on.
+    public String getLayout() {
+        return layout;
+    }
+
+    /**
+     * Replays the session into a new text area, which doesn't record it.
+     * @param realTime whether to keep the gaps between keys as recorded
+     * @return the speed and the checksum of the text
+     * @throws InterruptedException if interrupted while waiting for the next key
+     */
+    public Result replay(boolean realTime) throws InterruptedException {
+        return replay(new TextAreaBraille(false), realTime);
+    }
+
+    /**
+     * Replays the session into the text area given, through the layout it was typed on.
+     * @throws IllegalArgumentException if that layout is neither built in nor loaded
+     */
+    public Result replay(TextAreaBraille textArea, boolean realTime) throws InterruptedException {
+        KeyboardLayout keyboardLayout = KeyboardLayouts.getInstance().getLayouts().stream()
+                .filter(l -> l.getName().equals(layout)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Keyboard layout " + layout + " isn't loaded"));
+        textArea.setKeyboardLayout(keyboardLayout);
+        // The caret otherwise only follows edits made on the EDT.
+        if (textArea.getCaret() instanceof DefaultCaret caret) caret.setUpdatePolicy(DefaultCaret.ALWAYS_UPDATE);
+        long[] characters = new long[1];
+        DocumentListener counter = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                characters[0] += e.getLength();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {}
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {}
+        };
+        textArea.getDocument().addDocumentListener(counter);
+
+        long chords = textArea.getChordCount();
+        int failures = 0;
+        int firstFailure = -1;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < events.length; i++) {
+                if (realTime) {
+                    long wait = TimeUnit.MICROSECONDS.toNanos(micros[i]) - (System.nanoTime() - start);
+                    if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                int keyCode = events[i] >>> 1;
+                boolean up = (events[i] & 1) != 0;
+                try {
+                    // When as recorded, which the chords are assembled by.
+                    textArea.processKeyEvent(new KeyEvent(textArea, up ? KeyEvent.KEY_RELEASED : KeyEvent.KEY_PRESSED,
+                            micros[i] / 1000, 0, keyCode, KeyEvent.CHAR_UNDEFINED));
+                } catch (RuntimeException e) {
+                    // The EDT would report it and carry on with the next key, so do the same.
+                    if (failures++ == 0) firstFailure = i;
+                }
+            }
+        } finally {
+            textArea.getDocument().removeDocumentListener(counter);
+        }
+        long nanos = System.nanoTime() - start;
+        chords = textArea.getChordCount() - chords;
+
+        CRC32 crc = new CRC32();
+        crc.update(textArea.getText().getBytes(StandardCharsets.UTF_8));
+        return new Result(chords, characters[0], nanos, crc.getValue(), failures, firstFailure);
+    }
+
+    // Failures are the key events that threw, the first by its index in the session, or -1.
+    public record Result(long chords, long characters, long nanos, long checksum, int failures, int firstFailure) {
+        public double chordsPerSecond() {
+            return chords * 1e9 / Math.max(1, nanos);
+        }
+
+        public double charactersPerSecond() {
+            return characters * 1e9 / Math.max(1, nanos);
+        }
+
+        @Override
+        public String toString() {
+            String result = String.format("%d chords, %d characters in %.1fms: %.0f chords/s, %.0f characters/s, CRC32 %08x",
+                    chords, characters, nanos / 1e6, chordsPerSecond(), charactersPerSecond(), checksum);
+            if (failures > 0) result += ", " + failures + " keys failed, the first at event " + firstFailure;
+            return result;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: ChordSessionReplayer <session.chords> [--real-time] [--preview] [--rollover] [--layout=<file>]");
+            System.exit(2);
+        }
+        ChordSessionReplayer session = read(Path.of(args[0]));
+        List<String> options = Arrays.asList(args).subList(1, args.length);
+        boolean realTime = options.contains("--real-time");
+        for (String option: options) {
+            if (option.startsWith("--layout=")) KeyboardLayouts.getInstance().load(Path.of(option.substring("--layout=".length())));
+        }
+        System.out.println(args[0] + ": " + session.getEventCount() + " key events on " + session.getLayout());
+        TextAreaBraille textArea = new TextAreaBraille(false);
+        textArea.setChordPreview(options.contains("--preview"));
+        if (options.contains("--rollover")) textArea.getChordAssembler().setRollover(true);
+        System.out.println(session.replay(textArea, realTime));
+        ChordAssembler assembler = textArea.getChordAssembler();
+        System.out.printf("Chords assembled in %.1fms on average, %dms at most, from first key down%n",
+                assembler.getMeanLatency(), assembler.getMaxLatency());
+        System.out.printf("First feedback %.0fus on average%s, against %.0fus when typed%n", textArea.getMeanFirstFeedback(),
+                textArea.isChordPreview() ? " with the preview" : "", textArea.getMeanOutputFeedback());
+    }
+}
@@ -0,0 +1,238 @@
+package com.anas.jsimpletexteditor;
+
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.event.UndoableEditListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import javax.swing.undo.UndoableEdit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Undo and redo for a text component, over the TextEdits its PieceTableDocument reports.
+ * The edits made between beginStep and endStep, such as a chord's backspaces and text, are
+ * undone as one, and put back the state given before them, and redo the state after. Typing
+ * carries on the last step up to the end of a word, and the oldest steps are dropped once
+ * those kept hold more than about LIMIT characters.
+ * @param <S> what's put back with the text, such as a decoder's locks
+ */
+public class EditHistory<S> implements UndoableEditListener {
+    private static final int LIMIT = Integer.getInteger("jsimpletexteditor.undoLimit", 1 << 20);
+    // What a step's objects cost, counted as characters, so single characters typed apart
+    // don't go past the limit either.
+    private static final int STEP_SIZE = 32;
+
+    private static final class Step<S> {
+        private final ArrayList<UndoableEdit> edits = new ArrayList<>(1);
+        private final boolean typing;
+        private S before;
+        private S after;
+        private int size = STEP_SIZE;
+
+        private Step(S before, boolean typing) {
+            this.before = before;
+            this.typing = typing;
+        }
+
+        private void add(UndoableEdit edit) {
+            int size = sizeOf(edit);
+            // The remove and insert of a replace, or a chord's backspaces and text, are one.
+            if (!edits.isEmpty() && edits.get(edits.size() - 1) instanceof PieceTableDocument.TextEdit last
+                    && edit instanceof PieceTableDocument.TextEdit next) {
+                int lastSize = last.size();
+                if (last.merge(next)) {
+                    this.size += last.size() - lastSize;
+                    return;
+                }
+            }
+            edits.add(edit);
+            this.size += size;
+        }
+    }
+
+    /**
+     * The steps of a history taken away from its document, to be put in the history of
+     * another of the same text, such as a hibernated tab's when it's woken.
+     */
+    public static final class Steps<S> {
+        private final ArrayDeque<Step<S>> undos;
+        private final ArrayDeque<Step<S>> redos;
+        private final long size;
+
+        private Steps(ArrayDeque<Step<S>> undos, ArrayDeque<Step<S>> redos, long size) {
+            this.undos = undos;
+            this.redos = redos;
+            this.size = size;
+        }
+    }
+
+    private final JTextComponent text;
+    private final Consumer<S> restore;
+    private final ArrayDeque<Step<S>> undos = new ArrayDeque<>();
+    private final ArrayDeque<Step<S>> redos = new ArrayDeque<>();
+    // Characters in the steps kept.
+    private long size;
+    private Document document;
+    // Collecting the edits between beginStep and endStep.
+    private Step<S> step;
+
+    public EditHistory(JTextComponent text, Consumer<S> restore) {
+        this.text = text;
+        this.restore = restore;
+    }
+
+    // Follows the document, forgetting the last one's edits.
+    public void setDocument(Document document) {
+        if (this.document != null) this.document.removeUndoableEditListener(this);
+        this.document = document;
+        if (document != null) document.addUndoableEditListener(this);
+        discardAllEdits();
+    }
+
+    // Leaves the history empty, and the steps holding no document, or none if they'd need this one.
+    public Steps<S> takeSteps() {
+        Steps<S> steps = new Steps<>(undos.clone(), redos.clone(), size);
+        discardAllEdits();
+        if (!moveEdits(steps, null)) return new Steps<>(new ArrayDeque<>(), new ArrayDeque<>(), 0);
+        return steps;
+    }
+
+    // In place of these, the document having the text the steps were taken from.
+    public void putSteps(Steps<S> steps) {
+        discardAllEdits();
+        if (!(document instanceof PieceTableDocument to) || !moveEdits(steps, to)) return;
+        undos.addAll(steps.undos);
+        redos.addAll(steps.redos);
+        size = steps.size;
+    }
+
+    // Whether they were all TextEdits, which can be moved.
+    private static <S> boolean moveEdits(Steps<S> steps, PieceTableDocument document) {
+        for (ArrayDeque<Step<S>> queue: List.of(steps.undos, steps.redos)) {
+            for (Step<S> step: queue) {
+                for (UndoableEdit edit: step.edits) {
+                    if (edit instanceof PieceTableDocument.TextEdit text) {
+                        text.moveTo(document);
+                    } else if (edit instanceof PieceTableDocument.TextEdits texts) {
+                        texts.moveTo(document);
+                    } else {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    public void discardAllEdits() {
+        undos.clear();
+        redos.clear();
+        size = 0;
+        step = null;
+    }
+
+    /**
+     * Makes the edits until endStep one step.
+     * @param typing whether it may carry on the last step, as typing does
+     */
+    public void beginStep(S before, boolean typing) {
+        step = new Step<>(before, typing);
+    }
+
+    public void endStep(S after) {
+        Step<S> step = this.step;
+        this.step = null;
+        if (step == null || step.edits.isEmpty()) return;
+        step.after = after;
+        if (!coalesce(step)) push(step);
+    }
+
+    @Override
+    public void undoableEditHappened(UndoableEditEvent e) {
+        if (step != null) {
+            step.add(e.getEdit());
+        } else {
+            Step<S> step = new Step<>(null, false);
+            step.add(e.getEdit());
+            push(step);
+        }
+    }
+
+    // Typing on from where the last step typed, until a word is started after whitespace. Only
+    // what types something, so a backspace is undone by itself.
+    private boolean coalesce(Step<S> step) {
+        Step<S> last = undos.peekLast();
+        if (last == null || !last.typing || !step.typing || !redos.isEmpty()) return false;
+        if (last.edits.size() != 1 || step.edits.size() != 1) return false;
+        if (!(last.edits.get(0) instanceof PieceTableDocument.TextEdit lastEdit)
+                || !(step.edits.get(0) instanceof PieceTableDocument.TextEdit edit)) return false;
+        String typed = lastEdit.getInserted();
+        if (edit.getInserted().isEmpty()) return false;
+        if (!typed.isEmpty()
+                && Character.isWhitespace(typed.charAt(typed.length() - 1))
+                && !Character.isWhitespace(edit.getInserted().charAt(0))) return false;
+        int lastSize = lastEdit.size();
+        if (!lastEdit.merge(edit)) return false;
+        last.size += lastEdit.size() - lastSize;
+        size += lastEdit.size() - lastSize;
+        last.after = step.after;
+        trim();
+        return true;
+    }
+
+    private void push(Step<S> step) {
+        for (Step<S> redo: redos) size -= redo.size;
+        redos.clear();
+        undos.addLast(step);
+        size += step.size;
+        trim();
+    }
+
+    // Drops the oldest steps, but always keeps the last.
+    private void trim() {
+        while (size > LIMIT && undos.size() > 1) size -= undos.removeFirst().size;
+    }
+
+    public boolean canUndo() {
+        return !undos.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redos.isEmpty();
+    }
+
+    public void undo() {
+        Step<S> step = undos.pollLast();
+        if (step == null) return;
+        for (int i = step.edits.size() - 1; i >= 0; i--) step.edits.get(i).undo();
+        redos.addLast(step);
+        moveCaret(step.edits.get(0), false);
+        if (step.before != null) restore.accept(step.before);
+    }
+
+    public void redo() {
+        Step<S> step = redos.pollLast();
+        if (step == null) return;
+        for (UndoableEdit edit: step.edits) edit.redo();
+        undos.addLast(step);
+        moveCaret(step.edits.get(step.edits.size() - 1), true);
+        if (step.after != null) restore.accept(step.after);
+    }
+
+    // To the end of the text put back.
+    private void moveCaret(UndoableEdit edit, boolean redone) {
+        if (!(edit instanceof PieceTableDocument.TextEdit textEdit)) return;
+        String put = redone ? textEdit.getInserted() : textEdit.getRemoved();
+        int offset = Math.min(textEdit.getOffset() + put.length(), text.getDocument().getLength());
+        text.setCaretPosition(offset);
+    }
+
+    // The characters an edit keeps.
+    private static int sizeOf(UndoableEdit edit) {
+        if (edit instanceof PieceTableDocument.TextEdit text) return text.size();
+        if (edit instanceof PieceTableDocument.TextEdits texts) return texts.size();
+        return 1;
+    }
+}
@@ -0,0 +1,454 @@
+package com.anas.jsimpletexteditor;
+
+import com.anas.jsimpletexteditor.files.TextFile;
+import com.anas.jsimpletexteditor.settings.SettingsManager;
+
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the edits to a tab's text that aren't saved in a file, to recover them after a crash.
+ * A journal starts from the text as last read or saved, known by its fingerprint, or from a
+ * copy of the text, and has each insert and remove appended. The records are collected on
+ * the EDT and written every FLUSH_DELAY ms by a single thread, so keeping it costs in
+ * proportion to the edits, however large the file. Once it's grown past the text twice over
+ * it's compacted, in the background, into a copy of the text.
+ * <p>
+ * Journals are kept in the journal directory under Settings.getBasePath, beside a lock file
+ * for the session writing them, held until it exits. Those of a session whose lock can be
+ * taken were left by a crash, and are read back by recover.
+ */
+public class EditJournal {
+    private static final int MAGIC = 0x4A53544A;
+    private static final byte VERSION = 1;
+    // The records: the text as saved, of the length and hash given; a copy of the text; an
+    // insert of the text at the offset; a remove of the length at the offset.
+    private static final byte FILE = 1;
+    private static final byte TEXT = 2;
+    private static final byte INSERT = 3;
+    private static final byte REMOVE = 4;
+    private static final int FLUSH_DELAY = 300;
+    private static final long COMPACT_SIZE = 1024 * 1024;
+    private static final int BUFFER = 64 * 1024;
+
+    private static final Logger log = Logger.getLogger("EditJournal");
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EditJournal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final String SESSION = UUID.randomUUID().toString();
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    // On the EDT, the journals to delete on exit.
+    private static final Set<EditJournal> OPEN = new HashSet<>();
+    // On the writer, the lock showing the session's alive.
+    private static FileLock sessionLock;
+
+    private final Path path = directory().resolve(SESSION + "-" + COUNT.incrementAndGet() + ".journal");
+    private final DocumentListener listener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            try {
+                String text = e.getDocument().getText(e.getOffset(), e.getLength());
+                record().writeByte(INSERT);
+                records.writeInt(e.getOffset());
+                records.writeInt(text.length());
+                records.writeChars(text);
+            } catch (BadLocationException | IOException ignored) {
+                // Can't happen, in a listener writing to memory.
+            }
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            try {
+                record().writeByte(REMOVE);
+                records.writeInt(e.getOffset());
+                records.writeInt(e.getLength());
+            } catch (IOException ignored) {}
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {}
+    };
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream records = new DataOutputStream(pending);
+    private final Timer flushTimer = new Timer(FLUSH_DELAY, e -> flush());
+    private Document document;
+    // As the header has it.
+    private TextFile file;
+    // The header and the record it starts from, until there's an edit to write after them.
+    private byte[] start;
+    // How much is in the file, or will be once what's queued is written.
+    private long written;
+    // The last save of the text since the journal started, which if it failed keeps the journal on exit.
+    private Future<?> save;
+
+    public EditJournal() {
+        flushTimer.setRepeats(false);
+    }
+
+    private static Path directory() {
+        return Path.of(SettingsManager.getInstance().getEditorSettings().getBasePath(), "journal");
+    }
+
+    /**
+     * Starts again from the text as saved, with nothing to recover until it's edited.
+     * @param saved the fingerprint of the file's text, or of none if it doesn't exist
+     */
+    public void restart(TextFile file, PieceTable.Fingerprint saved, Document document) {
+        restart(document);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, file);
+            out.writeByte(FILE);
+            out.writeInt(saved.length());
+            out.writeLong(saved.hash());
+            start = bytes.toByteArray();
+        } catch (IOException ignored) {}
+    }
+
+    // Starts again from a copy of the text, as none of it's saved.
+    public void restart(TextFile file, PieceTableDocument document) {
+        restart(document);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            writeHeader(new DataOutputStream(bytes), file);
+            rewrite(bytes.toByteArray(), document);
+        } catch (IOException ignored) {}
+    }
+
+    private void restart(Document document) {
+        follow(document);
+        flushTimer.stop();
+        pending.reset();
+        start = null;
+        save = null;
+        if (written > 0) WRITER.execute(() -> delete(path));
+        written = 0;
+        OPEN.add(this);
+    }
+
+    /**
+     * Carries on with another document of the same text, such as a hibernated tab's woken.
+     * @param document the document, or null to stop listening while there's none
+     */
+    public void follow(Document document) {
+        if (this.document != null) this.document.removeDocumentListener(listener);
+        this.document = document;
+        if (document != null) document.addDocumentListener(listener);
+    }
+
+    // The text's being saved; restarted once it is.
+    public void saving(Future<?> save) {
+        this.save = save;
+    }
+
+    // No more to keep, as the tab's closed.
+    public void discard() {
+        follow(null);
+        flushTimer.stop();
+        pending.reset();
+        start = null;
+        save = null;
+        if (written > 0) WRITER.execute(() -> delete(path));
+        written = 0;
+        OPEN.remove(this);
+    }
+
+    // Writes what's left, and leaves the journal for recover.
+    private void keep() {
+        flush();
+        follow(null);
+        OPEN.remove(this);
+    }
+
+    // Whether the last save didn't, or isn't known to have, succeeded.
+    private boolean isSaveFailed() {
+        if (save == null) return false;
+        if (!save.isDone()) return true;
+        try {
+            save.get();
+            return false;
+        } catch (InterruptedException | ExecutionException e) {
+            return true;
+        }
+    }
+
+    private DataOutputStream record() {
+        if (!flushTimer.isRunning()) flushTimer.start();
+        return records;
+    }
+
+    // Queues what's been recorded, then compacts if it's grown large.
+    private void flush() {
+        flushTimer.stop();
+        if (start == null && written == 0) pending.reset();
+        if (pending.size() == 0) return;
+        byte[] bytes = pending.toByteArray();
+        pending.reset();
+        if (written == 0) {
+            byte[] start = this.start;
+            this.start = null;
+            written = start.length + bytes.length;
+            WRITER.execute(() -> write(path, false, start, bytes));
+        } else {
+            written += bytes.length;
+            WRITER.execute(() -> write(path, true, bytes));
+        }
+        if (document instanceof PieceTableDocument text && written > COMPACT_SIZE && written > 4L * text.getLength()) {
+            rewrite(header(), text);
+        }
+    }
+
+    // Replaces the journal with the header and a copy of the text as it is now.
+    private void rewrite(byte[] header, PieceTableDocument document) {
+        PieceTable.Snapshot text = document.snapshot();
+        start = null;
+        written = header.length + 5 + 2L * text.length();
+        WRITER.execute(() -> {
+            try {
+                lockSession();
+                Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER))) {
+                    out.write(header);
+                    out.writeByte(TEXT);
+                    out.writeInt(text.length());
+                    text.writeChars(out);
+                }
+                try {
+                    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                log.warning("COULDN'T WRITE " + path + ": " + e);
+            }
+        });
+    }
+
+    private byte[] header() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            writeHeader(new DataOutputStream(bytes), file);
+        } catch (IOException ignored) {}
+        return bytes.toByteArray();
+    }
+
+    private void writeHeader(DataOutputStream out, TextFile file) throws IOException {
+        this.file = file;
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(file.exists() ? file.getAbsolutePath() : "");
+        out.writeUTF(file.getName());
+        out.writeUTF(file.getCharset().name());
+    }
+
+    private static void write(Path path, boolean append, byte[]... parts) {
+        try {
+            lockSession();
+            try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (byte[] part : parts) out.write(part);
+            }
+        } catch (IOException e) {
+            log.warning("COULDN'T WRITE " + path + ": " + e);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warning("COULDN'T DELETE " + path + ": " + e);
+        }
+    }
+
+    // Before the first journal's written, so no other session takes it for one left by a crash.
+    private static void lockSession() throws IOException {
+        if (sessionLock != null) return;
+        Files.createDirectories(directory());
+        FileChannel channel = FileChannel.open(directory().resolve(SESSION + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        sessionLock = channel.lock();
+    }
+
+    /**
+     * Deletes the journals on exit, as the changes were saved or given up, but those whose
+     * save failed, which are kept to recover next time, and waits for them to be.
+     */
+    public static void closeAll() {
+        for (EditJournal journal : new ArrayList<>(OPEN)) {
+            if (journal.isSaveFailed()) {
+                journal.keep();
+            } else {
+                journal.discard();
+            }
+        }
+        WRITER.execute(() -> {
+            if (sessionLock == null) return;
+            try {
+                sessionLock.release();
+                sessionLock.channel().close();
+            } catch (IOException ignored) {}
+            delete(directory().resolve(SESSION + ".lock"));
+        });
+        WRITER.shutdown();
+        try {
+            WRITER.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A journal's text read back, with the fingerprint of its file as it is now.
+     * @param journal to give to discard once it's been dealt with
+     */
+    public record Recovered(TextFile file, PieceTableDocument document, PieceTable.Fingerprint saved, Path journal) {}
+
+    /**
+     * Reads back the journals of the sessions that didn't exit, skipping those with nothing
+     * unsaved, and those that can't be read, or whose file has changed since.
+     */
+    public static List<Recovered> recover() {
+        List<Recovered> recovered = new ArrayList<>();
+        Path directory = directory();
+        if (!Files.isDirectory(directory)) return recovered;
+        List<Path> journals = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.journal")) {
+            stream.forEach(journals::add);
+        } catch (IOException e) {
+            log.warning("COULDN'T LIST " + directory + ": " + e);
+            return recovered;
+        }
+        Set<String> alive = new HashSet<>();
+        Set<String> dead = new HashSet<>();
+        for (Path journal : journals) {
+            String name = journal.getFileName().toString();
+            String session = name.substring(0, Math.max(0, name.lastIndexOf('-')));
+            if (session.equals(SESSION) || alive.contains(session)) continue;
+            if (!dead.contains(session)) {
+                if (!isDead(directory.resolve(session + ".lock"))) {
+                    alive.add(session);
+                    continue;
+                }
+                dead.add(session);
+            }
+            try {
+                Recovered text = read(journal);
+                if (text != null) {
+                    recovered.add(text);
+                } else {
+                    delete(journal);
+                }
+            } catch (IOException e) {
+                log.warning("COULDN'T RECOVER " + journal + ": " + e);
+            }
+        }
+        return recovered;
+    }
+
+    // Whether the session of the lock has gone, in which case the lock's deleted.
+    private static boolean isDead(Path lock) {
+        try (FileChannel channel = FileChannel.open(lock, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock fileLock = channel.tryLock();
+            if (fileLock == null) return false;
+            fileLock.release();
+        } catch (IOException e) {
+            // Locked by another process, where a lock can't be taken twice.
+            return false;
+        }
+        delete(lock);
+        return true;
+    }
+
+    private static Recovered read(Path journal) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal), BUFFER))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) throw new IOException("Not a journal");
+            String path = in.readUTF();
+            String name = in.readUTF();
+            TextFile file = new TextFile(path.isEmpty() ? name : path);
+            file.setCharset(Charset.forName(in.readUTF()));
+            PieceTableDocument saved = (path.isEmpty() || !file.exists())
+                    ? new PieceTableDocument() : FileLoader.load(file, file.getCharset());
+            PieceTable.Fingerprint fingerprint = saved.fingerprint();
+            PieceTableDocument document = null;
+            try {
+                for (int type; (type = in.read()) >= 0; ) {
+                    switch (type) {
+                        case FILE -> {
+                            PieceTable.Fingerprint base = new PieceTable.Fingerprint(in.readInt(), in.readLong());
+                            if (!base.equals(fingerprint)) throw new IOException(file.getName() + " has changed since");
+                            document = saved;
+                        }
+                        case TEXT -> {
+                            int length = in.readInt();
+                            char[] text = PieceTable.Snapshot.readChars(in, length, 1);
+                            text[length] = '\n';
+                            document = new PieceTableDocument(new PieceTable(text, length + 1));
+                        }
+                        case INSERT -> {
+                            int offset = in.readInt();
+                            int length = in.readInt();
+                            String text = new String(PieceTable.Snapshot.readChars(in, length, 0));
+                            if (document == null) throw new IOException("No text to edit");
+                            document.insertString(offset, text, null);
+                        }
+                        case REMOVE -> {
+                            int offset = in.readInt();
+                            int length = in.readInt();
+                            if (document == null) throw new IOException("No text to edit");
+                            document.remove(offset, length);
+                        }
+                        default -> throw new IOException("Unknown record " + type);
+                    }
+                }
+            } catch (EOFException e) {
+                // The last record was cut short by the crash.
+            } catch (BadLocationException e) {
+                throw new IOException("An edit out of the text", e);
+            }
+            if (document == null || document.fingerprint().equals(fingerprint)) return null;
+            return new Recovered(file, document, fingerprint, journal);
+        }
+    }
+
+    // The journal was recovered or given up.
+    public static void discard(Recovered recovered) {
+        WRITER.execute(() -> delete(recovered.journal()));
+    }
+}
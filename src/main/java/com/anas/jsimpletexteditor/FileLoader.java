@@ -0,0 +1,154 @@
+package com.anas.jsimpletexteditor;
+
+import javax.swing.SwingWorker;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads a file into a PieceTableDocument off the EDT, which can be shown straight away:
+ * the bytes are decoded a chunk at a time into the array the piece table keeps, and each
+ * chunk appended to the document on the EDT as it's read. The first chunk is small, so
+ * there's a screenful to see at once. Progress is the percentage of the file read.
+ * <p>
+ * The text is as TextFile.getText gives it: \r\n and \r become newlines, and the last
+ * newline is dropped.
+ */
+public class FileLoader extends SwingWorker<PieceTableDocument, Integer> {
+    private static final int FIRST_CHUNK = 64 * 1024;
+    private static final int CHUNK = 4 * 1024 * 1024;
+
+    private final File file;
+    private final Charset charset;
+    private final char[] text;
+    private final PieceTableDocument document;
+    // How much of the array is text, for done to append what process hasn't yet.
+    private volatile int end;
+
+    public FileLoader(File file) {
+        this(file, Charset.defaultCharset());
+    }
+
+    public FileLoader(File file, Charset charset) {
+        this.file = file;
+        this.charset = charset;
+        // Too large a file is reported when it's read.
+        long capacity = (long) (file.length() * (double) charset.newDecoder().maxCharsPerByte());
+        text = new char[(capacity > Integer.MAX_VALUE - 8) ? 0 : (int) capacity];
+        document = new PieceTableDocument(new PieceTable(text));
+    }
+
+    /**
+     * Reads the file on the calling thread, as TextFile.getText does.
+     * @param file the file, which if missing or unreadable gives an empty document
+     * @return the document
+     */
+    public static PieceTableDocument load(File file) {
+        return load(file, Charset.defaultCharset());
+    }
+
+    public static PieceTableDocument load(File file, Charset charset) {
+        if (!file.exists() || !file.canRead()) return new PieceTableDocument();
+        FileLoader loader = new FileLoader(file, charset);
+        try {
+            loader.read(loader.document::appendLoaded);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new PieceTableDocument();
+        }
+        return loader.document;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Empty until the chunks read are appended.
+    public PieceTableDocument getDocument() {
+        return document;
+    }
+
+    @Override
+    protected PieceTableDocument doInBackground() throws IOException {
+        read(end -> {
+            this.end = end;
+            publish(end);
+        });
+        return document;
+    }
+
+    @Override
+    protected void process(List<Integer> ends) {
+        document.appendLoaded(ends.get(ends.size() - 1));
+    }
+
+    // Before the listeners hear it's done, as the last chunks published may not be in yet.
+    @Override
+    protected void done() {
+        if (!isCancelled()) document.appendLoaded(end);
+    }
+
+    // Hands over how much of the array is text after each chunk, until done or cancelled.
+    private void read(IntConsumer loaded) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > 0 && text.length == 0) throw new IOException(file.getName() + " is too large to edit");
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer chars = CharBuffer.wrap(text);
+            ByteBuffer bytes = ByteBuffer.allocateDirect(CHUNK);
+            bytes.limit(FIRST_CHUNK);
+            long read = 0;
+            int end = 0;
+            boolean cr = false;
+            boolean endOfInput = false;
+            while (!endOfInput && !isCancelled()) {
+                int count = channel.read(bytes);
+                endOfInput = count < 0;
+                if (count > 0) read += count;
+                bytes.flip();
+                check(decoder.decode(bytes, chars, endOfInput));
+                if (endOfInput) check(decoder.flush(chars));
+                bytes.compact();
+
+                // Makes the line endings newlines in place, remembering a \r at the end
+                // of a chunk for a \n at the start of the next.
+                int to = end;
+                for (int from = end; from < chars.position(); from++) {
+                    char c = text[from];
+                    if (c == '\n' && cr) {
+                        cr = false;
+                        continue;
+                    }
+                    cr = c == '\r';
+                    text[to++] = cr ? '\n' : c;
+                }
+                end = to;
+                chars.position(end);
+
+                // A newline at the end is kept back, as if it's the last it's dropped.
+                loaded.accept((end > 0 && text[end - 1] == '\n') ? end - 1 : end);
+                if (size > 0) setProgress((int) Math.min(100, read * 100 / size));
+            }
+        } catch (CharacterCodingException e) {
+            throw new IOException("Couldn't decode " + file.getName(), e);
+        }
+    }
+
+    private void check(CoderResult result) throws IOException {
+        // Overflow is the file having grown since its length was taken.
+        if (result.isOverflow()) throw new IOException(file.getName() + " changed while being read");
+        if (result.isError()) result.throwException();
+    }
+}
@@ -0,0 +1,184 @@
+package com.anas.jsimpletexteditor;
+
+import javax.swing.SwingWorker;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Writes a snapshot of a document off the EDT, so it can be edited meanwhile: the text is
+ * read a segment at a time, encoded in the charset given through a buffer kept for the whole
+ * file, and written to a temporary file beside the file, which then replaces it in one rename.
+ * A failure leaves the file as it was.
+ * <p>
+ * With -Djsimpletexteditor.fsync=true the data is forced to the disk before the rename, and
+ * the directory after, so the file survives a power cut as well as a crash.
+ */
+public class FileSaver extends SwingWorker<Path, Void> {
+    private static final int BUFFER = 64 * 1024;
+    private static final boolean FSYNC = Boolean.getBoolean("jsimpletexteditor.fsync");
+    // Waited for on exit, until done has reported how they went.
+    private static final Set<FileSaver> SAVING = ConcurrentHashMap.newKeySet();
+    private static final FileAttribute<Set<PosixFilePermission>> NEW_FILE_PERMISSIONS =
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-rw-rw-"));
+
+    private final Path path;
+    private final PieceTable.Snapshot text;
+    private final Charset charset;
+
+    private FileSaver(Path path, PieceTable.Snapshot text, Charset charset) {
+        this.path = path;
+        this.text = text;
+        this.charset = charset;
+    }
+
+    /**
+     * Starts writing the text to the file.
+     * @param text taken on the EDT
+     * @return the worker, whose get gives the file written or why it couldn't be
+     */
+    public static FileSaver save(Path path, PieceTable.Snapshot text, Charset charset) {
+        FileSaver saver = new FileSaver(path, text, charset);
+        SAVING.add(saver);
+        saver.execute();
+        return saver;
+    }
+
+    public PieceTable.Snapshot getText() {
+        return text;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    protected Path doInBackground() throws IOException {
+        return write(path, text, charset, FSYNC);
+    }
+
+    @Override
+    protected void done() {
+        SAVING.remove(this);
+    }
+
+    /**
+     * Lets the saves under way finish, before exiting.
+     * @return those that failed, whose failure there's been no time to report
+     */
+    public static List<FileSaver> finishSaving() {
+        List<FileSaver> failed = new ArrayList<>();
+        for (FileSaver saver : SAVING) {
+            try {
+                saver.get();
+            } catch (InterruptedException | ExecutionException e) {
+                failed.add(saver);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Writes the text to the file through a temporary file.
+     * @param path the file, which if a link is written through
+     * @param fsync whether to force it to the disk
+     * @return the file written
+     * @throws IOException if it couldn't be, when the file is untouched
+     */
+    public static Path write(Path path, CharSequence text, Charset charset, boolean fsync) throws IOException {
+        if (Files.exists(path)) path = path.toRealPath();
+        Path directory = path.toAbsolutePath().getParent();
+        boolean exists = Files.exists(path);
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        // A temporary file is private, so one for a new file is made as a file written plainly
+        // would be, readable and writable by all less the umask, which the system takes off.
+        Path temporary = (!exists && posix)
+                ? Files.createTempFile(directory, "." + path.getFileName(), ".tmp", NEW_FILE_PERMISSIONS)
+                : Files.createTempFile(directory, "." + path.getFileName(), ".tmp");
+        try {
+            // And one for a file that's there takes the permissions of the one it replaces.
+            if (exists) {
+                try {
+                    Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(path));
+                } catch (UnsupportedOperationException ignored) {}
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                encode(text, charset, channel);
+                if (fsync) channel.force(true);
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        if (fsync) {
+            // The rename too, on the systems where a directory can be opened to force it.
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException ignored) {}
+        }
+        return path;
+    }
+
+    private static void encode(CharSequence text, Charset charset, FileChannel channel) throws IOException {
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER * (int) Math.ceil(encoder.maxBytesPerChar()));
+        int offset = 0;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            // A surrogate left over from the last segment stays at the front.
+            if (text instanceof PieceTable.Snapshot snapshot) {
+                offset += snapshot.getChars(offset, chars);
+            } else {
+                int count = Math.min(chars.remaining(), text.length() - offset);
+                chars.append(text, offset, offset + count);
+                offset += count;
+            }
+            endOfInput = offset == text.length();
+            chars.flip();
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, endOfInput);
+                write(bytes, channel);
+            } while (result.isOverflow());
+            if (result.isError()) result.throwException();
+            chars.compact();
+        }
+        CoderResult result;
+        do {
+            result = encoder.flush(bytes);
+            write(bytes, channel);
+        } while (result.isOverflow());
+    }
+
+    private static void write(ByteBuffer bytes, FileChannel channel) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) channel.write(bytes);
+        bytes.clear();
+    }
+}
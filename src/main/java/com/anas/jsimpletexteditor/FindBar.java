@@ -0,0 +1,476 @@
+package com.anas.jsimpletexteditor;
+
+import net.miginfocom.swing.MigLayout;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.Segment;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Find and replace for a text area, under it. Matches are found in the background in a
+ * snapshot of the document, from the top of what's shown so that's highlighted first, then
+ * round from the start; the search starts again, cancelling the last, as the query or the
+ * text changes. Replace all finds in the background too, and replaces as one edit.
+ */
+public class FindBar extends JPanel {
+    // More are counted, but not highlighted.
+    private static final int MAX_HIGHLIGHTS = 10_000;
+
+    private final TextAreaBraille textArea;
+    private final JTextField queryField = new JTextField(20);
+    private final JTextField replaceField = new JTextField(20);
+    private final JCheckBox matchCaseBox = new JCheckBox("Match case");
+    private final JCheckBox regexBox = new JCheckBox("Regex");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final Highlighter.HighlightPainter painter = new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 220, 0));
+    private final List<Object> highlights = new ArrayList<>();
+    // Waits for typing to pause before searching again.
+    private final Timer searchTimer = new Timer(150, e -> search());
+    private SwingWorker<?, ?> worker;
+    private Document document;
+
+    private final DocumentListener changeListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            searchTimer.restart();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            searchTimer.restart();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {}
+    };
+    private final PropertyChangeListener documentListener = e -> {
+        if (isVisible()) {
+            watch((Document) e.getNewValue());
+            searchTimer.restart();
+        }
+    };
+
+    public FindBar(TextAreaBraille textArea) {
+        super(new MigLayout("insets 2", "[][grow, fill][][][][]"));
+        this.textArea = textArea;
+        searchTimer.setRepeats(false);
+        setVisible(false);
+
+        JButton nextButton = new JButton("Next");
+        JButton replaceButton = new JButton("Replace");
+        JButton replaceAllButton = new JButton("Replace All");
+        JButton closeButton = new JButton("Close");
+        add(new JLabel("Find:"));
+        add(queryField);
+        add(matchCaseBox);
+        add(regexBox);
+        add(nextButton, "sg button");
+        add(statusLabel, "wrap, wmin 120");
+        add(new JLabel("Replace:"));
+        add(replaceField);
+        add(replaceButton, "skip 2, sg button");
+        add(replaceAllButton, "sg button");
+        add(closeButton, "sg button");
+
+        queryField.getDocument().addDocumentListener(changeListener);
+        matchCaseBox.addActionListener(e -> search());
+        regexBox.addActionListener(e -> search());
+        queryField.addActionListener(e -> findNext());
+        nextButton.addActionListener(e -> findNext());
+        replaceField.addActionListener(e -> replace());
+        replaceButton.addActionListener(e -> replace());
+        replaceAllButton.addActionListener(e -> replaceAll());
+        closeButton.addActionListener(e -> close());
+        getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+        getActionMap().put("close", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                close();
+            }
+        });
+    }
+
+    // What's set in the bar, and whether it's open.
+    public record State(boolean open, String query, String replacement, boolean matchCase, boolean regex) {}
+
+    // Shows the bar, with the selection as the query if it's on one line.
+    public void open() {
+        String selected = textArea.getSelectedText();
+        if (selected != null && !selected.isEmpty() && selected.indexOf('\n') < 0) queryField.setText(selected);
+        openBar(true);
+    }
+
+    private void openBar(boolean focus) {
+        if (!isVisible()) {
+            setVisible(true);
+            textArea.addPropertyChangeListener("document", documentListener);
+            watch(textArea.getDocument());
+            if (getParent() != null) getParent().revalidate();
+        }
+        if (focus) {
+            queryField.selectAll();
+            queryField.requestFocusInWindow();
+        }
+        search();
+    }
+
+    public State getState() {
+        return new State(isVisible(), queryField.getText(), replaceField.getText(),
+                matchCaseBox.isSelected(), regexBox.isSelected());
+    }
+
+    // Opened as it was, without the selection or the focus.
+    public void setState(State state) {
+        queryField.setText(state.query());
+        replaceField.setText(state.replacement());
+        matchCaseBox.setSelected(state.matchCase());
+        regexBox.setSelected(state.regex());
+        if (state.open()) {
+            openBar(false);
+        } else if (isVisible()) {
+            close();
+        }
+    }
+
+    public void close() {
+        cancel();
+        clearHighlights();
+        textArea.removePropertyChangeListener("document", documentListener);
+        watch(null);
+        setVisible(false);
+        if (getParent() != null) getParent().revalidate();
+        textArea.requestFocusInWindow();
+    }
+
+    private void watch(Document document) {
+        if (this.document != null) this.document.removeDocumentListener(changeListener);
+        this.document = document;
+        if (document != null) document.addDocumentListener(changeListener);
+    }
+
+    // Whether a replace all is under way, which closing would stop.
+    public boolean isReplacing() {
+        return worker instanceof ReplaceAllWorker && !worker.isDone();
+    }
+
+    private void cancel() {
+        searchTimer.stop();
+        if (worker != null) worker.cancel(false);
+        worker = null;
+    }
+
+    private void clearHighlights() {
+        Highlighter highlighter = textArea.getHighlighter();
+        for (Object highlight : highlights) highlighter.removeHighlight(highlight);
+        highlights.clear();
+    }
+
+    // The query as set, or null with the status saying why not.
+    private TextSearch query() {
+        if (queryField.getText().isEmpty()) {
+            statusLabel.setText(" ");
+            return null;
+        }
+        try {
+            return TextSearch.of(queryField.getText(), regexBox.isSelected(), matchCaseBox.isSelected());
+        } catch (PatternSyntaxException e) {
+            statusLabel.setText("Invalid regex");
+            return null;
+        }
+    }
+
+    private PieceTableDocument pieceTableDocument() {
+        return (textArea.getDocument() instanceof PieceTableDocument document) ? document : null;
+    }
+
+    private void search() {
+        cancel();
+        clearHighlights();
+        TextSearch search = query();
+        PieceTableDocument document = pieceTableDocument();
+        if (search == null || document == null || !isVisible()) return;
+        statusLabel.setText("Searching...");
+        worker = new FindWorker(search, document, document.snapshot(), firstVisibleLine());
+        worker.execute();
+    }
+
+    // The start of the line at the top of the view.
+    private int firstVisibleLine() {
+        Rectangle visible = textArea.getVisibleRect();
+        int offset = Math.max(0, textArea.viewToModel2D(visible.getLocation()));
+        Element lines = textArea.getDocument().getDefaultRootElement();
+        return lines.getElement(lines.getElementIndex(offset)).getStartOffset();
+    }
+
+    // Selects the next match after the selection, round from the start if need be.
+    private void findNext() {
+        TextSearch search = query();
+        PieceTableDocument document = pieceTableDocument();
+        if (search == null || document == null) return;
+        PieceTable.Snapshot text = document.snapshot();
+        int[] match = next(search, text, textArea.getSelectionStart(), textArea.getSelectionEnd());
+        if (match == null) {
+            statusLabel.setText("Not found");
+            return;
+        }
+        textArea.select(match[0], match[1]);
+        textArea.getCaret().setSelectionVisible(true);
+    }
+
+    private static int[] next(TextSearch search, CharSequence text, int selectionStart, int selectionEnd) {
+        TextSearch.Matches matches = search.matches(text, selectionStart, text.length());
+        while (matches.find()) {
+            // Past the selection, if it's a match, and an empty match at the caret.
+            if (matches.start() == selectionStart && matches.end() == selectionEnd) continue;
+            return new int[] {matches.start(), matches.end()};
+        }
+        matches = search.matches(text, 0, Math.min(text.length(), selectionEnd));
+        return matches.find() ? new int[] {matches.start(), matches.end()} : null;
+    }
+
+    // Replaces the selection if it's a match, then selects the next.
+    private void replace() {
+        TextSearch search = query();
+        PieceTableDocument document = pieceTableDocument();
+        if (search == null || document == null || !textArea.isEditable()) return;
+        int start = textArea.getSelectionStart();
+        int end = textArea.getSelectionEnd();
+        TextSearch.Matches matches = search.matches(document.snapshot(), start, end);
+        if (matches.find() && matches.start() == start && matches.end() == end) {
+            String replacement = matches.replacement(replaceField.getText());
+            try {
+                document.editAsOne(() -> document.replace(start, end - start, replacement, null));
+            } catch (BadLocationException e) {
+                UIManager.getLookAndFeel().provideErrorFeedback(textArea);
+                return;
+            }
+            textArea.select(start + replacement.length(), start + replacement.length());
+        }
+        findNext();
+    }
+
+    private void replaceAll() {
+        TextSearch search = query();
+        PieceTableDocument document = pieceTableDocument();
+        if (search == null || document == null || !textArea.isEditable()) return;
+        cancel();
+        statusLabel.setText("Replacing...");
+        worker = new ReplaceAllWorker(search, replaceField.getText(), document, document.snapshot());
+        worker.execute();
+    }
+
+    // Reads through the snapshot, but stops when the worker's cancelled, even in a regex.
+    private static final class CancellableText implements CharSequence {
+        private final CharSequence text;
+        private final SwingWorker<?, ?> worker;
+        private int reads;
+
+        CancellableText(CharSequence text, SwingWorker<?, ?> worker) {
+            this.text = text;
+            this.worker = worker;
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((++reads & 0xFFFF) == 0 && worker.isCancelled()) throw new CancellationException();
+            return text.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    private final class FindWorker extends SwingWorker<Integer, int[]> {
+        private final TextSearch search;
+        private final PieceTableDocument document;
+        private final PieceTable.Snapshot snapshot;
+        private final int from;
+        private int published;
+
+        FindWorker(TextSearch search, PieceTableDocument document, PieceTable.Snapshot snapshot, int from) {
+            this.search = search;
+            this.document = document;
+            this.snapshot = snapshot;
+            this.from = from;
+        }
+
+        @Override
+        protected Integer doInBackground() {
+            CharSequence text = new CancellableText(snapshot, this);
+            // From the top of the view to the end, then the rest.
+            return find(text, from, text.length()) + find(text, 0, from);
+        }
+
+        private int find(CharSequence text, int from, int to) {
+            int count = 0;
+            TextSearch.Matches matches = search.matches(text, from, to);
+            while (matches.find()) {
+                count++;
+                if (published < MAX_HIGHLIGHTS && matches.end() > matches.start()) {
+                    published++;
+                    publish(new int[] {matches.start(), matches.end()});
+                }
+            }
+            return count;
+        }
+
+        @Override
+        protected void process(List<int[]> matches) {
+            if (worker != this || !document.isUnchangedSince(snapshot)) return;
+            Highlighter highlighter = textArea.getHighlighter();
+            try {
+                for (int[] match : matches) highlights.add(highlighter.addHighlight(match[0], match[1], painter));
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+            statusLabel.setText(highlights.size() + " matches...");
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this || isCancelled()) return;
+            worker = null;
+            try {
+                int count = get();
+                statusLabel.setText((count == 1) ? "1 match" : count + " matches");
+            } catch (Exception e) {
+                statusLabel.setText("Search failed");
+            }
+        }
+    }
+
+    /*
+     * Finds the matches and works out what replaces them in the background. The edit is made
+     * in chunks, each replacing the text from a match to one up to CHUNK on, as many edits
+     * are slower than one while a single one of a large file rebuilds every line. A chunk
+     * goes in on each event on the EDT, which stays responsive, with the text area read-only
+     * and the chunks undone as one.
+     */
+    private final class ReplaceAllWorker extends SwingWorker<List<ReplaceAllWorker.Chunk>, Void> {
+        private static final int CHUNK = 512 * 1024;
+
+        private final TextSearch search;
+        private final String replacement;
+        private final PieceTableDocument document;
+        private final PieceTable.Snapshot snapshot;
+        private int count;
+
+        ReplaceAllWorker(TextSearch search, String replacement, PieceTableDocument document, PieceTable.Snapshot snapshot) {
+            this.search = search;
+            this.replacement = replacement;
+            this.document = document;
+            this.snapshot = snapshot;
+        }
+
+        private record Chunk(int start, int end, String text) {}
+
+        @Override
+        protected List<Chunk> doInBackground() {
+            TextSearch.Matches matches = search.matches(new CancellableText(snapshot, this), 0, snapshot.length());
+            List<Chunk> chunks = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            Segment segment = new Segment();
+            segment.setPartialReturn(true);
+            int start = -1;
+            int end = -1;
+            while (matches.find()) {
+                count++;
+                if (start >= 0 && matches.end() - start > CHUNK) {
+                    chunks.add(new Chunk(start, end, text.toString()));
+                    start = -1;
+                }
+                if (start < 0) {
+                    start = matches.start();
+                    text.setLength(0);
+                } else {
+                    for (int offset = end; offset < matches.start(); offset += segment.count) {
+                        snapshot.getChars(offset, matches.start() - offset, segment);
+                        text.append(segment.array, segment.offset, segment.count);
+                    }
+                }
+                text.append(matches.replacement(replacement));
+                end = matches.end();
+            }
+            if (start >= 0) chunks.add(new Chunk(start, end, text.toString()));
+            return chunks;
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this || isCancelled()) return;
+            worker = null;
+            List<Chunk> chunks;
+            try {
+                chunks = get();
+            } catch (Exception e) {
+                statusLabel.setText("Replace failed");
+                return;
+            }
+            if (!document.isUnchangedSince(snapshot)) {
+                statusLabel.setText("The text changed, replace again");
+                return;
+            }
+            if (chunks.isEmpty()) {
+                statusLabel.setText("Replaced 0");
+                return;
+            }
+            textArea.setEditable(false);
+            document.beginCompoundEdit();
+            apply(chunks, chunks.size() - 1);
+        }
+
+        // From the end, so the offsets of the chunks before stay right.
+        private void apply(List<Chunk> chunks, int last) {
+            int i = last;
+            boolean more = false;
+            try {
+                for (int done = 0; i >= 0 && done < CHUNK; i--) {
+                    Chunk chunk = chunks.get(i);
+                    document.replace(chunk.start(), chunk.end() - chunk.start(), chunk.text(), null);
+                    done += chunk.end() - chunk.start();
+                }
+                more = i >= 0;
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                // Or failed, when what's been done can be undone.
+                if (!more) {
+                    document.endCompoundEdit();
+                    textArea.setEditable(true);
+                    statusLabel.setText("Replaced " + count);
+                }
+            }
+            if (!more) return;
+            int next = i;
+            statusLabel.setText("Replacing... " + (chunks.size() - 1 - next) * 100 / chunks.size() + "%");
+            SwingUtilities.invokeLater(() -> apply(chunks, next));
+        }
+    }
+}
@@ -2,23 +2,59 @@ package com.anas.jsimpletexteditor;
 
 import com.anas.jsimpletexteditor.files.TextFile;
 import com.anas.jsimpletexteditor.files.FileType;
-import com.anas.jsimpletexteditor.listners.TextEditorAreaListener;
 import com.anas.jsimpletexteditor.tab.Tab;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeListener;
 
 public class InformationPanel extends JPanel implements ChangeListener {
     private JComboBox<FileType> typeComboBox;
-    private JLabel charsNumberLabel;
+    private JLabel countsLabel;
+    private JProgressBar loadingBar;
+    private JButton cancelLoadingButton;
+    // The loader of the current tab's file, while it's being read.
+    private FileLoader loader;
+    private final PropertyChangeListener loaderListener = e -> updateLoading();
+    // The current tab's text area and its document, whose counts are shown.
+    private TextAreaBraille textArea;
+    private Document document;
+    private final PropertyChangeListener textAreaListener = e -> {
+        switch (e.getPropertyName()) {
+            case "document" -> {
+                watchDocument();
+                updateCounts();
+            }
+            case "chordCount" -> updateCounts();
+            default -> {}
+        }
+    };
+    private final DocumentListener documentListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            updateCounts();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            updateCounts();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {}
+    };
+    // Shows the counts at most once a frame, however fast the text changes.
+    private final Timer countsTimer = new Timer(1000 / 60, e -> showCounts());
     private final TabbedPane tabbedPane;
-    private final TextEditorAreaListener textEditorAreaListener;
 
     public InformationPanel(TabbedPane tabbedPane) {
         super();
-        textEditorAreaListener = new TextEditorAreaListener();
         super.setLayout(new MigLayout());
         this.tabbedPane = tabbedPane;
         init();
@@ -26,37 +62,51 @@ public class InformationPanel extends JPanel implements ChangeListener {
     }
 
     private void addComponents() {
-        add(charsNumberLabel, "grow, push");
+        add(countsLabel, "grow, push");
+        add(loadingBar, "hidemode 3");
+        add(cancelLoadingButton, "hidemode 3");
         add(typeComboBox, "");
     }
 
     private void init() {
         typeComboBox = new JComboBox<>();
-        charsNumberLabel = new JLabel("");
+        countsLabel = new JLabel("") {
+            // Worked out when it's shown, as tabs hibernate in the background.
+            @Override
+            public String getToolTipText(MouseEvent event) {
+                return memoryUse();
+            }
+        };
+        countsLabel.setToolTipText("");
+        loadingBar = new JProgressBar(0, 100);
+        loadingBar.setStringPainted(true);
+        cancelLoadingButton = new JButton("Cancel");
+        cancelLoadingButton.addActionListener(e -> cancelLoading());
+        countsTimer.setRepeats(false);
+        addItemsToTypeComboBox();
         Tab tab = tabbedPane.getCurrentTab();
-        textEditorAreaListener.setInformationPanel(this);
         setupComponents(tab);
+        watchCounts(tab);
+        watchLoading(tab);
         tabbedPane.addChangeListener(this);
     }
 
     private boolean setupComponents(Tab tab) {
         if (tab != null) {
             setValues(tab);
-            charsNumberLabel.setVisible(true);
+            countsLabel.setVisible(true);
             typeComboBox.setVisible(true);
             return true;
         } else {
-            charsNumberLabel.setVisible(false);
+            countsLabel.setVisible(false);
             typeComboBox.setVisible(false);
             return false;
         }
     }
 
     private void setValues(Tab tab) {
-        addItemsToTypeComboBox();
         TextFile textFile = tab.getTextEditorPane().getTextFile();
         typeComboBox.setSelectedIndex(textFile.getType().ordinal());
-        updateCharsNumber();
     }
 
     private void addItemsToTypeComboBox() {
@@ -68,13 +118,73 @@ public class InformationPanel extends JPanel implements ChangeListener {
     @Override
     public void stateChanged(ChangeEvent changeEvent) {
         Tab tab = tabbedPane.getCurrentTab();
-        if (setupComponents(tab)) {
-            textEditorAreaListener.setAcceptTab(tab);
-            tab.getTextEditorPane().getTextArea().addKeyListener(textEditorAreaListener);
+        // Still hibernating, as it couldn't be woken, so there's nothing to show.
+        if (tab != null && tab.isHibernating()) tab = null;
+        setupComponents(tab);
+        watchCounts(tab);
+        watchLoading(tab);
+    }
+
+    // Only the current tab is listened to, and its counts are kept by its document and text
+    // area, so switching costs the same however large the file.
+    private void watchCounts(Tab tab) {
+        if (textArea != null) textArea.removePropertyChangeListener(textAreaListener);
+        textArea = (tab != null) ? tab.getTextEditorPane().getTextArea() : null;
+        if (textArea != null) textArea.addPropertyChangeListener(textAreaListener);
+        watchDocument();
+        showCounts();
+    }
+
+    private void watchDocument() {
+        if (document != null) document.removeDocumentListener(documentListener);
+        document = (textArea != null) ? textArea.getDocument() : null;
+        if (document != null) document.addDocumentListener(documentListener);
+    }
+
+    private void watchLoading(Tab tab) {
+        if (loader != null) loader.removePropertyChangeListener(loaderListener);
+        loader = (tab != null) ? tab.getTextEditorPane().getLoader() : null;
+        if (loader != null) loader.addPropertyChangeListener(loaderListener);
+        updateLoading();
+    }
+
+    private void updateLoading() {
+        boolean loading = loader != null && !loader.isDone();
+        loadingBar.setVisible(loading);
+        cancelLoadingButton.setVisible(loading);
+        if (loading) {
+            loadingBar.setValue(loader.getProgress());
+            loadingBar.setString("Opening " + loader.getFile().getName() + " " + loader.getProgress() + "%");
         }
     }
 
-    public void updateCharsNumber() {
-        charsNumberLabel.setText("Chars: " + (tabbedPane.getCurrentTab().getTextEditorPane().getTextArea().getText().length()));
+    // Stops reading the file, and closes its tab, as only part of it is in.
+    private void cancelLoading() {
+        Tab tab = tabbedPane.getCurrentTab();
+        if (tab == null) return;
+        tab.getTextEditorPane().cancelLoading();
+        tabbedPane.remove(tab);
+    }
+
+    private void updateCounts() {
+        if (!countsTimer.isRunning()) countsTimer.start();
+    }
+
+    private String memoryUse() {
+        long megabyte = 1024 * 1024;
+        return "Open tabs: about " + (tabbedPane.getMemoryUse() + megabyte - 1) / megabyte + " MB of "
+                + tabbedPane.getMemoryBudget() / megabyte + " MB, " + tabbedPane.getHibernatingTabCount() + " hibernating";
+    }
+
+    private void showCounts() {
+        countsTimer.stop();
+        if (textArea == null) return;
+        StringBuilder counts = new StringBuilder("Chars: ").append(document.getLength());
+        if (document instanceof PieceTableDocument pieceTableDocument) {
+            counts.append("   Words: ").append(pieceTableDocument.getWordCount());
+        }
+        counts.append("   Lines: ").append(document.getDefaultRootElement().getElementCount());
+        counts.append("   Chords: ").append(textArea.getChordCount());
+        countsLabel.setText(counts.toString());
     }
 }
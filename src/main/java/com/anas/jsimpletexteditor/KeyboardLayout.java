@@ -0,0 +1,88 @@
+package com.anas.jsimpletexteditor;
+
+import java.awt.AWTKeyStroke;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Which keys are which pins, compiled into a table indexed by key code, so a key is looked
+ * up with an array read. An entry holds the pins the key presses, in the low 8 bits, or one
+ * of the keys that aren't pins (SPACE, BACKSPACE, ENTER, TAB), or 0 for a key that's neither.
+ * <p>
+ * A layout is defined as properties: "name", then each dot from 1 to 8, and optionally
+ * space, backspace, enter and tab, with the keys for it by their KeyEvent names less VK_, eg:
+ * <pre>
+ *     name=AZERTY
+ *     1=F
+ *     7=Q
+ *     8=M
+ *     space=SPACE,B
+ * </pre>
+ * Dots not given aren't typed, and the others default to the keys of the same name.
+ */
+public final class KeyboardLayout {
+    public static final int PINS = 0xFF;
+    public static final int SPACE = 0x100;
+    public static final int BACKSPACE = 0x200;
+    public static final int ENTER = 0x400;
+    public static final int TAB = 0x800;
+
+    private static final String[] KEYS = {"space", "backspace", "enter", "tab"};
+    private static final String[] DEFAULT_KEYS = {"SPACE", "BACK_SPACE", "ENTER", "TAB"};
+
+    private final String name;
+    private final Path path;
+    private final int[] table;
+
+    private KeyboardLayout(String name, Path path, int[] table) {
+        this.name = name;
+        this.path = path;
+        this.table = table;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // The file it was loaded from, or null for those built in.
+    public Path getPath() {
+        return path;
+    }
+
+    public int get(int keyCode) {
+        return (keyCode >= 0 && keyCode < table.length) ? table[keyCode] : 0;
+    }
+
+    static KeyboardLayout compile(String name, Path path, Map<String, String> definition) {
+        int[] table = new int[0];
+        for (int dot = 1; dot <= 8; dot++) {
+            table = put(table, definition.get(String.valueOf(dot)), 1 << (dot - 1));
+        }
+        for (int i = 0; i < KEYS.length; i++) {
+            table = put(table, definition.getOrDefault(KEYS[i], DEFAULT_KEYS[i]), SPACE << i);
+        }
+        return new KeyboardLayout(name, path, table);
+    }
+
+    // The keys, separated by commas, as entry, growing the table to fit them.
+    private static int[] put(int[] table, String keys, int entry) {
+        if (keys == null) return table;
+        for (String key: keys.split(",")) {
+            key = key.trim();
+            if (key.isEmpty()) continue;
+            AWTKeyStroke stroke = AWTKeyStroke.getAWTKeyStroke(key);
+            if (stroke == null) throw new IllegalArgumentException("No such key: " + key);
+            int keyCode = stroke.getKeyCode();
+            if (keyCode >= table.length) table = Arrays.copyOf(table, keyCode + 1);
+            if (table[keyCode] != 0) throw new IllegalArgumentException("Key used twice: " + key);
+            table[keyCode] = entry;
+        }
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
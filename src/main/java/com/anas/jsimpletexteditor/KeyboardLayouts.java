@@ -0,0 +1,86 @@
+package com.anas.jsimpletexteditor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The keyboard layouts: those built in, for the same fingers on the home row of QWERTY,
+ * AZERTY and Dvorak keyboards, one-handed, and six keys as on a Perkins brailler, and those
+ * loaded from files, which are compiled once each.
+ */
+public final class KeyboardLayouts {
+    public static final String DEFAULT = "QWERTY";
+
+    private static KeyboardLayouts instance;
+
+    private final LinkedHashMap<String, KeyboardLayout> builtIn = new LinkedHashMap<>();
+    private final LinkedHashMap<Path, KeyboardLayout> loaded = new LinkedHashMap<>();
+
+    private KeyboardLayouts() {
+        add(DEFAULT, "F", "D", "S", "J", "K", "L", "A", "SEMICOLON");
+        // The same keys, where AZERTY has Q and M.
+        add("AZERTY", "F", "D", "S", "J", "K", "L", "Q", "M");
+        add("Dvorak", "U", "E", "O", "H", "T", "N", "A", "S");
+        // The right hand, dots 1 to 3 on the home row and 4 to 6 above.
+        add("One-handed (right)", "J", "K", "L", "U", "I", "O", "SEMICOLON", "P");
+        // Dots 1 to 6 only.
+        add("Perkins (6 keys)", "F", "D", "S", "J", "K", "L", null, null);
+    }
+
+    private void add(String name, String... dots) {
+        HashMap<String, String> definition = new HashMap<>();
+        for (int dot = 1; dot <= dots.length; dot++) {
+            if (dots[dot - 1] != null) definition.put(String.valueOf(dot), dots[dot - 1]);
+        }
+        builtIn.put(name, KeyboardLayout.compile(name, null, definition));
+    }
+
+    public static synchronized KeyboardLayouts getInstance() {
+        if (instance == null) {
+            instance = new KeyboardLayouts();
+        }
+        return instance;
+    }
+
+    public KeyboardLayout getDefault() {
+        return builtIn.get(DEFAULT);
+    }
+
+    // Those built in, then those loaded.
+    public synchronized List<KeyboardLayout> getLayouts() {
+        ArrayList<KeyboardLayout> layouts = new ArrayList<>(builtIn.values());
+        layouts.addAll(loaded.values());
+        return layouts;
+    }
+
+    public synchronized KeyboardLayout load(Path path) throws IOException {
+        Path file = path.toAbsolutePath().normalize();
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, String> definition = new HashMap<>();
+        for (String key: properties.stringPropertyNames()) {
+            definition.put(key, properties.getProperty(key));
+        }
+        String name = definition.getOrDefault("name", file.getFileName().toString());
+        KeyboardLayout layout;
+        try {
+            layout = KeyboardLayout.compile(name, file, definition);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        // Loaded again, it's replaced, as the file may have changed.
+        loaded.put(file, layout);
+        return layout;
+    }
+}
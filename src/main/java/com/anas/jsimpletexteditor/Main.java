@@ -1,7 +1,11 @@
 package com.anas.jsimpletexteditor;
 
+import com.anas.jsimpletexteditor.settings.SettingsManager;
+
 public class Main {
     public static void main(String[] args) {
+        // Read while Swing starts up.
+        SettingsManager.loadInBackground();
         new MainFrame();
     }
 }
@@ -1,5 +1,6 @@
 package com.anas.jsimpletexteditor;
 
+import com.anas.jsimpletexteditor.braille.BrailleImport;
 import com.anas.jsimpletexteditor.files.FileType;
 import com.anas.jsimpletexteditor.files.TextFile;
 import com.anas.jsimpletexteditor.listners.MainFrameListener;
@@ -7,9 +8,14 @@ import com.anas.jsimpletexteditor.settings.*;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.text.Document;
 import java.awt.*;
+import java.io.File;
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class MainFrame extends JFrame implements Serializable, SettingsListener {
     @Serial
@@ -31,6 +37,40 @@ public class MainFrame extends JFrame implements Serializable, SettingsListener
         super.addWindowListener(new MainFrameListener(this));
         super.setVisible(true);
         SettingsManager.getInstance().addSettingsListener(this);
+        recoverEdits();
+    }
+
+    // Offers back the edits left unsaved by a crash, read in the background.
+    private void recoverEdits() {
+        new SwingWorker<List<EditJournal.Recovered>, Void>() {
+            @Override
+            protected List<EditJournal.Recovered> doInBackground() {
+                return EditJournal.recover();
+            }
+
+            @Override
+            protected void done() {
+                List<EditJournal.Recovered> recovered;
+                try {
+                    recovered = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    return;
+                }
+                if (recovered.isEmpty()) return;
+                StringBuilder names = new StringBuilder();
+                for (EditJournal.Recovered text : recovered) names.append("\n").append(text.file().getName());
+                int answer = JOptionPane.showConfirmDialog(MainFrame.this,
+                        "The editor didn't exit properly last time. Recover the unsaved changes to these?" + names,
+                        "Recover", JOptionPane.YES_NO_OPTION);
+                for (EditJournal.Recovered text : recovered) {
+                    if (answer == JOptionPane.YES_OPTION) {
+                        tabbedPane.openNewTab(text.file());
+                        tabbedPane.getCurrentTab().getTextEditorPane().restore(text.document(), text.saved());
+                    }
+                    EditJournal.discard(text);
+                }
+            }
+        }.execute();
     }
 
     private void addMenuBar() {
@@ -38,7 +78,7 @@ public class MainFrame extends JFrame implements Serializable, SettingsListener
         JMenu fileMenu = new JMenu("File");
         JMenu newFileMenu = new JMenu("New File");
         JMenuItem[] fileMenuItems = {
-                        new JMenuItem("Open"),
+                        new JMenuItem("Open"), new JMenuItem("Import Braille"),
                         new JMenuItem("Save"), new JMenuItem("Save As"),
                         new JMenuItem("Close File"), new JMenuItem("Settings"),
                         new JMenuItem("Exit")
@@ -74,12 +114,20 @@ public class MainFrame extends JFrame implements Serializable, SettingsListener
             }
         });
 
+        JFileChooser brailleFileChooser = new JFileChooser();
+        brailleFileChooser.setFileFilter(new FileNameExtensionFilter("Braille files (brf, brl, txt)", "brf", "brl", "txt"));
         fileMenuItems[1].addActionListener(event -> {
+            if (brailleFileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                importBraille(brailleFileChooser.getSelectedFile());
+            }
+        });
+
+        fileMenuItems[2].addActionListener(event -> {
             if (tabbedPane.getCurrentTab() != null)
                 tabbedPane.getCurrentTab().save();
         });
 
-        fileMenuItems[2].addActionListener(event -> {
+        fileMenuItems[3].addActionListener(event -> {
             if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
                 try {
                     int currentIndex = tabbedPane.getSelectedIndex();
@@ -89,11 +137,42 @@ public class MainFrame extends JFrame implements Serializable, SettingsListener
             }
         });
 
-        fileMenuItems[3].addActionListener(event -> tabbedPane.remove(tabbedPane.getCurrentTab()));
+        fileMenuItems[4].addActionListener(event -> tabbedPane.remove(tabbedPane.getCurrentTab()));
+
+        fileMenuItems[5].addActionListener(event -> new SettingsFrame());
+
+        fileMenuItems[6].addActionListener(event -> this.exit());
+    }
 
-        fileMenuItems[4].addActionListener(event -> new SettingsFrame());
+    // Translates the braille file off the EDT, then opens the print text in a new tab.
+    private void importBraille(File file) {
+        new SwingWorker<Document, Void>() {
+            @Override
+            protected Document doInBackground() throws Exception {
+                String text = BrailleImport.translate(file.toPath());
+                // Not yet shown, so it can be filled here.
+                Document document = new PieceTableDocument();
+                document.insertString(0, text, null);
+                return document;
+            }
 
-        fileMenuItems[5].addActionListener(event -> this.exit());
+            @Override
+            protected void done() {
+                try {
+                    Document document = get();
+                    String name = file.getName();
+                    if (name.contains(".")) name = name.substring(0, name.lastIndexOf('.'));
+                    // Not the file of that name, if there is one, so saving asks where.
+                    tabbedPane.openNewTab(TextFile.untitled(name + ".txt"));
+                    tabbedPane.getCurrentTab().getTextEditorPane().getTextArea().setDocument(document);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Couldn't import " + file.getName() + ": " + cause.getMessage(),
+                            "Import Braille", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
     }
 
     public void exit() {
@@ -104,29 +183,52 @@ public class MainFrame extends JFrame implements Serializable, SettingsListener
                 return;
             }
         }
+        SettingsManager.getInstance().applyPendingSettings();
+        List<FileSaver> failed = FileSaver.finishSaving();
+        if (!failed.isEmpty()) {
+            StringBuilder names = new StringBuilder();
+            for (FileSaver saver : failed) names.append("\n").append(saver.getPath());
+            JOptionPane.showMessageDialog(this, "Couldn't save:" + names
+                    + "\nThe changes will be recovered next time.", "Exit", JOptionPane.ERROR_MESSAGE);
+        }
+        EditJournal.closeAll();
         System.exit(0);
     }
 
     @Override
     public void onSettingsChanged(SettingsChangedEvent event) {
-        setUpSettings(event.getUiSettings());
-        super.revalidate();
-        super.repaint();
+        UISettings uiSettings = event.getUiSettings();
+        if (event.isUiFontChanged()) {
+            setUpFonts(uiSettings);
+            super.revalidate();
+        }
+        if (event.isUiColorChanged()) {
+            setUpColors(uiSettings);
+            super.repaint();
+        }
     }
 
     private void setUpSettings(UISettings uiSettings) {
+        setUpFonts(uiSettings);
+        setUpColors(uiSettings);
+    }
+
+    private void setUpFonts(UISettings uiSettings) {
         super.setFont(uiSettings.getFont());
+        menuBar.setFont(uiSettings.getFont());
+        this.informationPanel.setFont(uiSettings.getFont());
+    }
+
+    private void setUpColors(UISettings uiSettings) {
         super.setBackground(uiSettings.getBackgroundColor());
         super.getContentPane().setBackground(uiSettings.getBackgroundColor());
         super.setForeground(uiSettings.getTextColor());
 
-        menuBar.setFont(uiSettings.getFont());
         menuBar.setBackground(uiSettings.getBackgroundColor());
         menuBar.setForeground(uiSettings.getTextColor());
 
         this.informationPanel.setBackground(uiSettings.getBackgroundColor());
         this.informationPanel.setForeground(uiSettings.getTextColor());
-        this.informationPanel.setFont(uiSettings.getFont());
     }
 
     private static class CustomMenuItem extends JMenuItem {
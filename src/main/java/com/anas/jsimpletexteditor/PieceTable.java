@@ -0,0 +1,719 @@
+package com.anas.jsimpletexteditor;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.UndoableEdit;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Document content as a piece table: the text as loaded, never written, and a buffer the
+ * inserted text is appended to, with the document as a sequence of pieces of the two. The
+ * pieces are kept in a treap by their offset in the document, so an insert or a remove costs
+ * O(log pieces) however large the text, and typing at one place grows a single piece.
+ * <p>
+ * The two buffers are addressed as one, the original first, and a character keeps its
+ * address for good. So a position is the address of the character it's before, found in
+ * the treap when its offset is asked for, and needs no updating as the text changes around
+ * it. When the character is removed the position moves to where it was, through a tombstone
+ * left for the addresses removed. Positions at the start stay there as text is inserted
+ * before them, as they do with GapContent. Once there are many tombstones and pins, the
+ * positions still used are moved onto the characters they're at, and they're let go of.
+ * <p>
+ * The content's edits can't be undone by themselves: insertString and remove return an empty
+ * edit, as AbstractDocument only tells its undoable edit listeners of an edit when there is
+ * one, and PieceTableDocument hands them a TextEdit, which undoes by editing again.
+ * <p>
+ * As with GapContent the content always ends with a newline, which can't be removed.
+ * <p>
+ * Each subtree of the treap also keeps a RollingHash of its text, so the fingerprint of the
+ * whole text is there at the root, for telling in O(1) whether it's back as it was saved.
+ */
+public class PieceTable implements AbstractDocument.Content {
+    // A guess at what a piece costs besides its text, for getMemoryUse.
+    private static final int PIECE_BYTES = 128;
+    // The fewest tombstones and pins, and positions, worth compacting for.
+    private static final int COMPACT_SIZE = 1024;
+
+    private final char[] original;
+    private char[] added = new char[1024];
+    private int addedLength;
+    private final RollingHash originalHash = new RollingHash();
+    private final RollingHash addedHash = new RollingHash();
+    // How much of the original is in the content, when it's appended as it's read.
+    private int loaded;
+
+    private Node root;
+    // The pieces by their address, to find the one holding a position.
+    private final TreeMap<Integer, Node> byAddress = new TreeMap<>();
+    // The addresses removed, by the first, to the address of the character after them.
+    private final TreeMap<Integer, Tombstone> tombstones = new TreeMap<>();
+    // The characters that were first when text was inserted before them, as GapContent keeps
+    // positions at the start there, with the generation it last happened in.
+    private final HashMap<Integer, Integer> pins = new HashMap<>();
+    // The positions made, which are moved on when the tombstones and pins are compacted.
+    private final ArrayList<WeakReference<Mark>> marks = new ArrayList<>();
+    private int compactAt = COMPACT_SIZE;
+    private int pruneMarksAt = COMPACT_SIZE;
+    // Counts the edits, to tell what a position followed when.
+    private int generation;
+    private int seed = 0x2545F491;
+
+    // Set by split.
+    private Node splitLeft;
+    private Node splitRight;
+
+    public PieceTable() {
+        this(new char[] {'\n'}, 1);
+    }
+
+    /**
+     * Takes the text without copying it. The text must end with the newline the content
+     * ends with, and the array mustn't be written afterwards.
+     * @param text the array holding the text
+     * @param length how much of the array is text
+     */
+    public PieceTable(char[] text, int length) {
+        if (length < 1 || length > text.length || text[length - 1] != '\n') {
+            throw new IllegalArgumentException("The text must end with a newline");
+        }
+        original = text;
+        originalHash.extend(text, length);
+        root = piece(0, length);
+        loaded = length;
+    }
+
+    /**
+     * Starts out empty, to be filled from the array through appendLoaded as it's read into.
+     * The array mustn't be written below what's been appended.
+     * @param text the array the text is read into
+     */
+    public PieceTable(char[] text) {
+        original = text;
+        added[0] = '\n';
+        addedLength = 1;
+        addedHash.extend(added, addedLength);
+        root = piece(text.length, 1);
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > length()) throw new BadLocationException("Invalid position", offset);
+        // One at the start stays there, and one after the last newline follows the length.
+        if (offset == 0) return START;
+        if (offset == length()) return end;
+        Mark mark = new Mark(addressAt(offset), generation);
+        if (marks.size() >= pruneMarksAt) {
+            marks.removeIf(reference -> reference.get() == null);
+            pruneMarksAt = Math.max(COMPACT_SIZE, 2 * marks.size());
+        }
+        marks.add(new WeakReference<>(mark));
+        return mark;
+    }
+
+    @Override
+    public int length() {
+        return size(root);
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where >= length()) throw new BadLocationException("Invalid insert", length());
+        int length = str.length();
+        if (length == 0) return null;
+        int address = original.length + addedLength;
+        if (addedLength + length > added.length) {
+            added = Arrays.copyOf(added, Math.max(added.length * 2, addedLength + length));
+        }
+        str.getChars(0, length, added, addedLength);
+        addedLength += length;
+        addedHash.extend(added, addedLength);
+        insert(where, address, length);
+        return new AbstractUndoableEdit();
+    }
+
+    /**
+     * Appends the original up to end, read since the last time, before the final newline.
+     * Unlike an insert it can't be undone, as the text was there all along.
+     * @param end how much of the array has been read
+     * @return how many characters were appended
+     */
+    public int appendLoaded(int end) {
+        if (end > original.length) throw new IllegalArgumentException("Read past the array");
+        int length = end - loaded;
+        if (length <= 0) return 0;
+        originalHash.extend(original, end);
+        insert(length() - 1, loaded, length);
+        loaded = end;
+        return length;
+    }
+
+    private void insert(int where, int address, int length) {
+        generation++;
+        if (where == 0) pins.put(addressAt(0), generation);
+
+        // Typing carries on the piece typed last, if it ends where this starts.
+        Node before = (where > 0) ? pieceAt(where - 1) : null;
+        if (before != null && before.address + before.length == address && offsetOf(before) + before.length == where) {
+            setLength(before, before.length + length);
+            for (Node node = before; node != null; node = node.parent) update(node);
+        } else {
+            split(root, where);
+            Node right = splitRight;
+            root = merge(merge(splitLeft, piece(address, length)), right);
+            root.parent = null;
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length()) {
+            throw new BadLocationException("Invalid remove", length() + 1);
+        }
+        if (nitems == 0) return null;
+        generation++;
+        removePieces(where, nitems);
+        compactIfNeeded();
+        return new AbstractUndoableEdit();
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        Segment segment = new Segment();
+        getChars(where, len, segment);
+        return new String(segment.array, segment.offset, segment.count);
+    }
+
+    /**
+     * Points the segment at the text in place when it's all in one piece, otherwise copies it,
+     * or with a partial return asked for, points it at as much as is in the first piece.
+     */
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) throw new BadLocationException("Invalid location", length() + 1);
+        if (len == 0) {
+            txt.array = original;
+            txt.offset = 0;
+            txt.count = 0;
+            return;
+        }
+        Node node = pieceAt(where);
+        int inPiece = where - offsetOf(node);
+        int available = node.length - inPiece;
+        if (len <= available || txt.isPartialReturn()) {
+            int address = node.address + inPiece;
+            txt.array = buffer(address);
+            txt.offset = (address < original.length) ? address : address - original.length;
+            txt.count = Math.min(len, available);
+            return;
+        }
+        char[] copy = new char[len];
+        for (int copied = 0; copied < len; node = next(node), inPiece = 0) {
+            int count = Math.min(node.length - inPiece, len - copied);
+            int address = node.address + inPiece;
+            System.arraycopy(buffer(address), (address < original.length) ? address : address - original.length,
+                    copy, copied, count);
+            copied += count;
+        }
+        txt.array = copy;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    // How many pieces the text is in, one for a file as loaded.
+    public int getPieceCount() {
+        return byAddress.size();
+    }
+
+    /**
+     * Roughly how many bytes the text takes: both buffers, with the space not yet used, and
+     * a treap node, a map entry and a position for each piece and tombstone.
+     */
+    public long getMemoryUse() {
+        return 2L * (original.length + added.length) + originalHash.getMemoryUse() + addedHash.getMemoryUse()
+                + PIECE_BYTES * (byAddress.size() + tombstones.size());
+    }
+
+    // Counts the edits, undoing and redoing them too.
+    public int getGeneration() {
+        return generation;
+    }
+
+    // The length and hash of the text, which are the same whenever the text is.
+    public record Fingerprint(int length, long hash) {}
+
+    public Fingerprint fingerprint() {
+        return new Fingerprint(length(), root.hash);
+    }
+
+    // Whether nothing's changed since the snapshot was taken of this, not even undone.
+    public boolean isUnchangedSince(Snapshot snapshot) {
+        return snapshot.table == this && snapshot.generation == generation;
+    }
+
+    /**
+     * The text as it is now, which later edits don't change, to read on another thread. The
+     * buffers are only ever appended to, so the snapshot shares them and costs O(pieces).
+     * @return the text less the final newline, as the document has it
+     */
+    public Snapshot snapshot() {
+        int count = 0;
+        for (Node node = first(root); node != null; node = next(node)) count++;
+        int[] addresses = new int[count];
+        int[] starts = new int[count];
+        int i = 0;
+        int offset = 0;
+        for (Node node = first(root); node != null; node = next(node), i++) {
+            addresses[i] = node.address;
+            starts[i] = offset;
+            offset += node.length;
+        }
+        return new Snapshot(this, addresses, starts, length() - 1);
+    }
+
+    public static final class Snapshot implements CharSequence {
+        // The chars written or read at a time.
+        private static final int CHUNK = 32 * 1024;
+
+        private final PieceTable table;
+        private final int generation;
+        private final Fingerprint fingerprint;
+        private final char[] original;
+        private final char[] added;
+        private final int[] addresses;
+        private final int[] starts;
+        private final int length;
+        // The piece read last, as text is mostly read in order. Reading it alone is safe.
+        private int lastPiece;
+
+        private Snapshot(PieceTable table, int[] addresses, int[] starts, int length) {
+            this.table = table;
+            generation = table.generation;
+            fingerprint = table.fingerprint();
+            original = table.original;
+            added = table.added;
+            this.addresses = addresses;
+            this.starts = starts;
+            this.length = length;
+        }
+
+        // The text's fingerprint, with the final newline.
+        public Fingerprint fingerprint() {
+            return fingerprint;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+            int piece = piece(index);
+            int address = addresses[piece] + index - starts[piece];
+            return (address < original.length) ? original[address] : added[address - original.length];
+        }
+
+        /**
+         * As Content.getChars: the segment is pointed into the buffers where the text is in
+         * one piece, or on partial return the piece at where, and is otherwise a copy.
+         */
+        public void getChars(int where, int len, Segment txt) {
+            if (where < 0 || len < 0 || where + len > length) throw new IndexOutOfBoundsException(where + len);
+            if (len == 0) {
+                txt.array = original;
+                txt.offset = 0;
+                txt.count = 0;
+                return;
+            }
+            int piece = piece(where);
+            int inPiece = where - starts[piece];
+            int available = end(piece) - where;
+            if (len <= available || txt.isPartialReturn()) {
+                point(txt, addresses[piece] + inPiece, Math.min(len, available));
+                return;
+            }
+            char[] copy = new char[len];
+            for (int copied = 0; copied < len; piece++, inPiece = 0) {
+                int count = Math.min(end(piece) - starts[piece] - inPiece, len - copied);
+                point(txt, addresses[piece] + inPiece, count);
+                System.arraycopy(txt.array, txt.offset, copy, copied, count);
+                copied += count;
+            }
+            txt.array = copy;
+            txt.offset = 0;
+            txt.count = len;
+        }
+
+        private void point(Segment txt, int address, int count) {
+            txt.array = (address < original.length) ? original : added;
+            txt.offset = (address < original.length) ? address : address - original.length;
+            txt.count = count;
+        }
+
+        /**
+         * Copies the text from where into the buffer, as much as it has room for.
+         * @return how many chars were copied
+         */
+        public int getChars(int where, CharBuffer into) {
+            int end = where + Math.min(into.remaining(), length - where);
+            Segment segment = new Segment();
+            segment.setPartialReturn(true);
+            for (int offset = where; offset < end; offset += segment.count) {
+                getChars(offset, end - offset, segment);
+                into.put(segment.array, segment.offset, segment.count);
+            }
+            return end - where;
+        }
+
+        // The chars as UTF-16, without their length, for readChars.
+        public void writeChars(OutputStream out) throws IOException {
+            ByteBuffer bytes = ByteBuffer.allocate(CHUNK * 2);
+            CharBuffer chars = bytes.asCharBuffer();
+            for (int offset = 0; offset < length; ) {
+                chars.clear();
+                offset += getChars(offset, chars);
+                out.write(bytes.array(), 0, chars.position() * 2);
+            }
+        }
+
+        /**
+         * Reads back the chars writeChars wrote.
+         * @param more room left after them
+         * @throws EOFException if there are fewer
+         */
+        public static char[] readChars(InputStream in, int length, int more) throws IOException {
+            char[] text = new char[length + more];
+            byte[] bytes = new byte[CHUNK * 2];
+            for (int offset = 0; offset < length; ) {
+                int count = Math.min(length - offset, CHUNK);
+                if (in.readNBytes(bytes, 0, count * 2) < count * 2) throw new EOFException();
+                ByteBuffer.wrap(bytes, 0, count * 2).asCharBuffer().get(text, offset, count);
+                offset += count;
+            }
+            return text;
+        }
+
+        private int piece(int index) {
+            int piece = lastPiece;
+            if (index >= starts[piece] && index < end(piece)) return piece;
+            piece = Arrays.binarySearch(starts, index);
+            piece = (piece >= 0) ? piece : -piece - 2;
+            lastPiece = piece;
+            return piece;
+        }
+
+        // Where the piece ends, the last one holding the final newline too.
+        private int end(int piece) {
+            return (piece + 1 < starts.length) ? starts[piece + 1] : length + 1;
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) throw new IndexOutOfBoundsException(start);
+            Segment segment = new Segment();
+            getChars(start, end - start, segment);
+            return new String(segment.array, segment.offset, segment.count);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+
+
+    private char[] buffer(int address) {
+        return (address < original.length) ? original : added;
+    }
+
+    private int addressAt(int offset) {
+        Node node = pieceAt(offset);
+        return node.address + offset - offsetOf(node);
+    }
+
+    // The offset of the character at the address, followed since the generation given, or
+    // where it was if it's been removed.
+    private int offsetOfAddress(int address, int since) {
+        while (true) {
+            if (isPinned(address, since)) return 0;
+            Map.Entry<Integer, Node> entry = byAddress.floorEntry(address);
+            if (entry != null && address < entry.getKey() + entry.getValue().length) {
+                return offsetOf(entry.getValue()) + address - entry.getKey();
+            }
+            Map.Entry<Integer, Tombstone> removed = tombstones.floorEntry(address);
+            if (removed == null || address >= removed.getValue().end) {
+                throw new IllegalStateException("Lost the character at " + address);
+            }
+            address = removed.getValue().next;
+            since = removed.getValue().generation;
+        }
+    }
+
+    private boolean isPinned(int address, int since) {
+        if (pins.isEmpty()) return false;
+        Integer pinnedIn = pins.get(address);
+        return pinnedIn != null && pinnedIn > since;
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones.size() + pins.size() >= compactAt) compact();
+    }
+
+    // Moves the positions still used onto the characters they're at, so the tombstones and
+    // pins they'd follow can go.
+    private void compact() {
+        int live = 0;
+        for (WeakReference<Mark> reference : marks) {
+            Mark mark = reference.get();
+            if (mark == null) continue;
+            mark.moveOn();
+            marks.set(live++, reference);
+        }
+        marks.subList(live, marks.size()).clear();
+        tombstones.clear();
+        pins.clear();
+        compactAt = Math.max(COMPACT_SIZE, 2 * live);
+        pruneMarksAt = Math.max(COMPACT_SIZE, 2 * live);
+    }
+
+    // Takes out the text, leaving tombstones for the positions in it.
+    private void removePieces(int where, int length) {
+        split(root, where);
+        Node left = splitLeft;
+        split(splitRight, length);
+        Node removed = splitLeft;
+        root = merge(left, splitRight);
+        root.parent = null;
+
+        int next = addressAt(where);
+        for (Node node = first(removed); node != null; node = next(node)) {
+            byAddress.remove(node.address);
+            node.live = false;
+            tombstones.put(node.address, new Tombstone(node.address + node.length, next, generation));
+        }
+    }
+
+
+    private Node piece(int address, int length) {
+        // Xorshift, for the priorities.
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        Node node = new Node(address, seed);
+        setLength(node, length);
+        update(node);
+        byAddress.put(address, node);
+        return node;
+    }
+
+    // The node's own, with its hash, which its parents' need updating for.
+    private void setLength(Node node, int length) {
+        node.length = length;
+        int address = node.address;
+        node.pieceHash = (address < original.length)
+                ? originalHash.hash(original, address, address + length)
+                : addedHash.hash(added, address - original.length, address - original.length + length);
+        node.pieceShift = RollingHash.pow(RollingHash.BASE, length);
+    }
+
+    private static int size(Node node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + node.length + size(node.right);
+        long hash = hash(node.left);
+        long shift = shift(node.left);
+        hash = RollingHash.add(hash, RollingHash.mul(shift, node.pieceHash));
+        shift = RollingHash.mul(shift, node.pieceShift);
+        node.hash = RollingHash.add(hash, RollingHash.mul(shift, hash(node.right)));
+        node.shift = RollingHash.mul(shift, shift(node.right));
+    }
+
+    private static long hash(Node node) {
+        return (node == null) ? 0 : node.hash;
+    }
+
+    // BASE to the power of the node's size.
+    private static long shift(Node node) {
+        return (node == null) ? 1 : node.shift;
+    }
+
+    // The piece holding the offset, which must be in the text.
+    private Node pieceAt(int offset) {
+        Node node = root;
+        while (true) {
+            int left = size(node.left);
+            if (offset < left) {
+                node = node.left;
+            } else if (offset < left + node.length) {
+                return node;
+            } else {
+                offset -= left + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    private static int offsetOf(Node node) {
+        int offset = size(node.left);
+        for (; node.parent != null; node = node.parent) {
+            if (node == node.parent.right) offset += size(node.parent.left) + node.parent.length;
+        }
+        return offset;
+    }
+
+    private static Node first(Node node) {
+        if (node == null) return null;
+        while (node.left != null) node = node.left;
+        return node;
+    }
+
+    private static Node next(Node node) {
+        if (node.right != null) return first(node.right);
+        while (node.parent != null && node == node.parent.right) node = node.parent;
+        return node.parent;
+    }
+
+    // Into splitLeft, the first k characters, and splitRight, the rest, cutting a piece if need be.
+    private void split(Node node, int k) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        int left = size(node.left);
+        if (k <= left) {
+            split(node.left, k);
+            node.left = splitRight;
+            if (node.left != null) node.left.parent = node;
+            update(node);
+            splitRight = node;
+        } else if (k >= left + node.length) {
+            split(node.right, k - left - node.length);
+            node.right = splitLeft;
+            if (node.right != null) node.right.parent = node;
+            update(node);
+            splitLeft = node;
+        } else {
+            int cut = k - left;
+            Node tail = piece(node.address + cut, node.length - cut);
+            setLength(node, cut);
+            Node right = node.right;
+            if (right != null) right.parent = null;
+            node.right = null;
+            update(node);
+            splitLeft = node;
+            splitRight = merge(tail, right);
+        }
+        if (splitLeft != null) splitLeft.parent = null;
+        if (splitRight != null) splitRight.parent = null;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.right.parent = left;
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.left.parent = right;
+        update(right);
+        return right;
+    }
+
+
+    private static final class Node {
+        final int address;
+        int length;
+        final int priority;
+        int size;
+        // Of the piece's own text, and BASE to the power of its length.
+        long pieceHash;
+        long pieceShift;
+        // Of the subtree's text, and BASE to the power of its size.
+        long hash;
+        long shift;
+        Node left;
+        Node right;
+        Node parent;
+        boolean live = true;
+
+        Node(int address, int priority) {
+            this.address = address;
+            this.priority = priority;
+        }
+    }
+
+    // The addresses up to end were removed, from before the character at next, in the generation.
+    private record Tombstone(int end, int next, int generation) {}
+
+    private static final Position START = () -> 0;
+
+    private final Position end = this::length;
+
+    private final class Mark implements Position {
+        private int address;
+        private int since;
+        // The piece it was last found in, and its offset then, as it's asked for many times
+        // between edits, eg: by the binary search for a line.
+        private Node node;
+        private int offset;
+        private int resolvedIn = -1;
+
+        Mark(int address, int since) {
+            this.address = address;
+            this.since = since;
+        }
+
+        @Override
+        public int getOffset() {
+            if (resolvedIn == generation) return offset;
+            if (node == null || !node.live || address >= node.address + node.length) {
+                Map.Entry<Integer, Node> entry = byAddress.floorEntry(address);
+                node = (entry != null && address < entry.getKey() + entry.getValue().length) ? entry.getValue() : null;
+            }
+            offset = (node != null && !isPinned(address, since))
+                    ? offsetOf(node) + address - node.address
+                    : offsetOfAddress(address, since);
+            resolvedIn = generation;
+            return offset;
+        }
+
+        // Onto the character it's at now, following from now on.
+        void moveOn() {
+            address = addressAt(getOffset());
+            since = generation;
+            node = null;
+            resolvedIn = -1;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(getOffset());
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.anas.jsimpletexteditor;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.CompoundEdit;
+import javax.swing.undo.UndoableEdit;
+import java.util.ArrayList;
+
+/**
+ * A PlainDocument over a PieceTable, so large files load without being copied into a
+ * GapContent and are edited without moving a gap across them.
+ */
+public class PieceTableDocument extends PlainDocument {
+    // A guess at what a line's element and its two positions cost, for getMemoryUse.
+    private static final int LINE_BYTES = 96;
+
+    // Kept up to date as the text changes, by the edges of each edit.
+    private int words;
+    private final Segment segment = new Segment();
+    // Collecting the edits made between beginCompoundEdit and endCompoundEdit.
+    private TextEdits compound;
+    private int compoundDepth;
+    // The text a remove takes, from removeUpdate, for its TextEdit.
+    private String removed;
+    // Undoing or redoing a TextEdit, which isn't an edit to hear of.
+    private boolean undoing;
+
+    public PieceTableDocument() {
+        this(new PieceTable());
+    }
+
+    public PieceTableDocument(PieceTable content) {
+        super(content);
+        segment.setPartialReturn(true);
+        words = wordStarts(0, getLength());
+    }
+
+    // Runs of characters that aren't whitespace.
+    public int getWordCount() {
+        return words;
+    }
+
+    // Roughly how many bytes the text and its lines take.
+    public long getMemoryUse() {
+        return ((PieceTable) getContent()).getMemoryUse() + (long) LINE_BYTES * getDefaultRootElement().getElementCount();
+    }
+
+    public int getRevision() {
+        return ((PieceTable) getContent()).getGeneration();
+    }
+
+    public PieceTable.Fingerprint fingerprint() {
+        return ((PieceTable) getContent()).fingerprint();
+    }
+
+    // The text as it is now, to read on another thread while this is edited.
+    public PieceTable.Snapshot snapshot() {
+        readLock();
+        try {
+            return ((PieceTable) getContent()).snapshot();
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public boolean isUnchangedSince(PieceTable.Snapshot snapshot) {
+        return ((PieceTable) getContent()).isUnchangedSince(snapshot);
+    }
+
+    /**
+     * Appends what FileLoader has read since the last time, as an insert that can't be
+     * undone, so listeners and the lines follow the file as it comes in.
+     * @param end how much of the content's array has been read
+     */
+    void appendLoaded(int end) {
+        writeLock();
+        try {
+            int offset = getLength();
+            int length = ((PieceTable) getContent()).appendLoaded(end);
+            if (length == 0) return;
+            DefaultDocumentEvent event = new DefaultDocumentEvent(offset, length, DocumentEvent.EventType.INSERT);
+            insertUpdate(event, null);
+            event.end();
+            fireInsertUpdate(event);
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    public interface Edits {
+        void run() throws BadLocationException;
+    }
+
+    /**
+     * Makes the edits as one: other threads don't see them half done, and undo takes them
+     * back together.
+     */
+    public void editAsOne(Edits edits) throws BadLocationException {
+        beginCompoundEdit();
+        writeLock();
+        try {
+            edits.run();
+        } finally {
+            writeUnlock();
+            endCompoundEdit();
+        }
+    }
+
+    // The remove and insert as one edit, so undo takes them back together.
+    @Override
+    public void replace(int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
+        beginCompoundEdit();
+        try {
+            super.replace(offset, length, text, attrs);
+        } finally {
+            endCompoundEdit();
+        }
+    }
+
+    /**
+     * Collects the edits until endCompoundEdit, for the undoable edit listeners to hear of
+     * them in a single CompoundEdit, which may be over several events on the EDT, or as one
+     * TextEdit if they come to one, as a replace's remove and insert do.
+     */
+    public void beginCompoundEdit() {
+        if (compoundDepth++ == 0) compound = new TextEdits();
+    }
+
+    public void endCompoundEdit() {
+        if (--compoundDepth > 0) return;
+        TextEdits edit = compound;
+        compound = null;
+        edit.end();
+        if (!edit.isSignificant()) return;
+        TextEdit one = edit.asOne();
+        fireUndoableEditUpdate(new UndoableEditEvent(this, (one != null) ? one : edit));
+    }
+
+    private boolean isUndoable() {
+        return !undoing && (compound != null || getUndoableEditListeners().length > 0);
+    }
+
+    // The listeners hear of a TextEdit rather than the DefaultDocumentEvent, which would keep
+    // its line elements and their positions.
+    @Override
+    protected void fireUndoableEditUpdate(UndoableEditEvent e) {
+        if (!isUndoable()) return;
+        UndoableEdit edit = e.getEdit();
+        if (edit instanceof DefaultDocumentEvent event) {
+            if (event.getType() == DocumentEvent.EventType.INSERT) {
+                try {
+                    edit = new TextEdit(this, event.getOffset(), "", getText(event.getOffset(), event.getLength()));
+                } catch (BadLocationException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            } else if (event.getType() == DocumentEvent.EventType.REMOVE) {
+                edit = new TextEdit(this, event.getOffset(), removed, "");
+            }
+            removed = null;
+        }
+        if (compound != null) {
+            compound.addEdit(edit);
+        } else {
+            super.fireUndoableEditUpdate(new UndoableEditEvent(this, edit));
+        }
+    }
+
+    /**
+     * An edit as the text removed and inserted at an offset, which is all it keeps, and which
+     * it undoes and redoes with replace, on a document that can be moved to another of the
+     * same text.
+     */
+    public static final class TextEdit extends AbstractUndoableEdit {
+        private PieceTableDocument document;
+        private int offset;
+        private String removed;
+        private String inserted;
+
+        private TextEdit(PieceTableDocument document, int offset, String removed, String inserted) {
+            this.document = document;
+            this.offset = offset;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public String getRemoved() {
+            return removed;
+        }
+
+        public String getInserted() {
+            return inserted;
+        }
+
+        // The characters kept.
+        public int size() {
+            return removed.length() + inserted.length();
+        }
+
+        /**
+         * Takes in the edit made just after this one, if it only removes the end of what this
+         * inserted, or that and the text before it, such as a character typed after this or a
+         * backspace over it.
+         */
+        public boolean merge(TextEdit next) {
+            if (next.getDocument() != getDocument()) return false;
+            int end = offset + inserted.length();
+            if (next.offset + next.removed.length() != end || next.offset > end) return false;
+            if (next.offset >= offset) {
+                inserted = inserted.substring(0, next.offset - offset) + next.inserted;
+            } else {
+                removed = next.removed.substring(0, offset - next.offset) + removed;
+                inserted = next.inserted;
+                offset = next.offset;
+            }
+            return true;
+        }
+
+        PieceTableDocument getDocument() {
+            return document;
+        }
+
+        // To another document of the same text, or none while there's none.
+        public void moveTo(PieceTableDocument document) {
+            this.document = document;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            if (!replace(inserted.length(), removed)) throw new CannotUndoException();
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            if (!replace(removed.length(), inserted)) throw new CannotRedoException();
+        }
+
+        private boolean replace(int length, String text) {
+            if (document == null) return false;
+            document.undoing = true;
+            try {
+                document.replace(offset, length, text, null);
+                return true;
+            } catch (BadLocationException e) {
+                return false;
+            } finally {
+                document.undoing = false;
+            }
+        }
+    }
+
+    // TextEdits made as one.
+    public static final class TextEdits extends CompoundEdit {
+        public void moveTo(PieceTableDocument document) {
+            for (UndoableEdit edit: edits) {
+                if (edit instanceof TextEdit text) text.moveTo(document);
+            }
+        }
+
+        public int size() {
+            int size = 0;
+            for (UndoableEdit edit: edits) {
+                if (edit instanceof TextEdit text) size += text.size();
+            }
+            return size;
+        }
+
+        // The TextEdit the edits merge into, or null.
+        private TextEdit asOne() {
+            TextEdit one = null;
+            for (UndoableEdit edit: edits) {
+                if (!(edit instanceof TextEdit next)) return null;
+                if (one == null) {
+                    one = new TextEdit(next.document, next.offset, next.removed, next.inserted);
+                } else if (!one.merge(next)) {
+                    return null;
+                }
+            }
+            return one;
+        }
+    }
+
+    // The text is in, so the words counted are those starting in it or at the character after
+    // it, less whether that one started a word after the character before the text.
+    @Override
+    protected void insertUpdate(DefaultDocumentEvent chng, AttributeSet attr) {
+        int offset = chng.getOffset();
+        int end = offset + chng.getLength();
+        words += wordStarts(offset, end + 1) - (isWordStart(end, offset - 1) ? 1 : 0);
+        super.insertUpdate(chng, attr);
+    }
+
+    // The text is still there, so the other way round.
+    @Override
+    protected void removeUpdate(DefaultDocumentEvent chng) {
+        int offset = chng.getOffset();
+        int end = offset + chng.getLength();
+        words += (isWordStart(end, offset - 1) ? 1 : 0) - wordStarts(offset, end + 1);
+        if (isUndoable()) {
+            try {
+                removed = getText(offset, chng.getLength());
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        super.removeUpdate(chng);
+    }
+
+    // The characters from from to to that aren't whitespace and follow one that is, or the start.
+    private int wordStarts(int from, int to) {
+        Content content = getContent();
+        boolean space = from == 0 || isSpace(from - 1);
+        int count = 0;
+        try {
+            for (int offset = from; offset < to; offset += segment.count) {
+                content.getChars(offset, to - offset, segment);
+                for (int i = segment.offset, end = segment.offset + segment.count; i < end; i++) {
+                    boolean isSpace = Character.isWhitespace(segment.array[i]);
+                    if (space && !isSpace) count++;
+                    space = isSpace;
+                }
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        return count;
+    }
+
+    // Whether the character at offset starts a word when the one at before precedes it.
+    private boolean isWordStart(int offset, int before) {
+        return !isSpace(offset) && (before < 0 || isSpace(before));
+    }
+
+    private boolean isSpace(int offset) {
+        try {
+            getContent().getChars(offset, 1, segment);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        return Character.isWhitespace(segment.array[segment.offset]);
+    }
+
+    // A line for each in the content, which unlike GapContent may start out holding text.
+    @Override
+    protected AbstractElement createDefaultRoot() {
+        BranchElement map = (BranchElement) createBranchElement(null, null);
+        Content content = getContent();
+        ArrayList<Element> lines = new ArrayList<>();
+        Segment segment = new Segment();
+        segment.setPartialReturn(true);
+        int start = 0;
+        try {
+            for (int offset = 0; offset < content.length(); offset += segment.count) {
+                content.getChars(offset, content.length() - offset, segment);
+                for (int i = 0; i < segment.count; i++) {
+                    if (segment.array[segment.offset + i] == '\n') {
+                        int end = offset + i + 1;
+                        lines.add(createLeafElement(map, null, start, end));
+                        start = end;
+                    }
+                }
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        map.replace(0, 0, lines.toArray(new Element[0]));
+        return map;
+    }
+}
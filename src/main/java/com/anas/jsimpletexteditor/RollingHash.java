@@ -0,0 +1,95 @@
+package com.anas.jsimpletexteditor;
+
+import java.util.Arrays;
+
+/**
+ * A polynomial hash of text modulo the prime 2^61 - 1: the sum of each character times BASE
+ * to the power of its offset. Two texts one after the other hash to the first's hash plus the
+ * second's times BASE to the first's length, so PieceTable keeps one for each subtree of its
+ * treap, and the whole text's is at the root.
+ * <p>
+ * An instance keeps checkpoints over one of the piece table's buffers, the hash of it up to
+ * every BLOCK characters, so the hash of any piece of it is two checkpoints apart, give or
+ * take a block at either end.
+ */
+final class RollingHash {
+    static final long PRIME = (1L << 61) - 1;
+    static final long BASE = 0x1F3D5B79A2C4E687L % PRIME;
+    private static final long INVERSE = pow(BASE, PRIME - 2);
+    private static final int BLOCK = 64;
+    private static final long BLOCK_POWER = pow(BASE, BLOCK);
+
+    // checkpoints[k] is the hash of the first k blocks.
+    private long[] checkpoints = new long[16];
+    private int blocks;
+    // BASE to the power of the characters hashed into the checkpoints.
+    private long power = 1;
+
+    /**
+     * Hashes the blocks written since the last time.
+     * @param end how much of the buffer is written, which mustn't change after
+     */
+    void extend(char[] buffer, int end) {
+        int count = end / BLOCK;
+        if (count >= checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, Math.max(checkpoints.length * 2, count + 1));
+        for (; blocks < count; blocks++) {
+            // By Horner's rule, from the end of the block, as if it were the whole text.
+            long hash = 0;
+            for (int i = (blocks + 1) * BLOCK - 1; i >= blocks * BLOCK; i--) hash = add(mul(hash, BASE), buffer[i]);
+            checkpoints[blocks + 1] = add(checkpoints[blocks], mul(hash, power));
+            power = mul(power, BLOCK_POWER);
+        }
+    }
+
+    // Of the characters from from to to, as if they were the whole text, up to where it's extended.
+    long hash(char[] buffer, int from, int to) {
+        if (to - from <= 2 * BLOCK) return hash(buffer, from, to, 0, 1);
+        return mul(subtract(prefix(buffer, to), prefix(buffer, from)), pow(INVERSE, from));
+    }
+
+    private long prefix(char[] buffer, int end) {
+        int block = end / BLOCK;
+        return hash(buffer, block * BLOCK, end, checkpoints[block], pow(BASE, (long) block * BLOCK));
+    }
+
+    private static long hash(char[] buffer, int from, int to, long hash, long power) {
+        for (int i = from; i < to; i++) {
+            hash = add(hash, mul(buffer[i], power));
+            power = mul(power, BASE);
+        }
+        return hash;
+    }
+
+    // How much the checkpoints take, in bytes.
+    long getMemoryUse() {
+        return 8L * checkpoints.length;
+    }
+
+    static long add(long a, long b) {
+        long sum = a + b;
+        return (sum >= PRIME) ? sum - PRIME : sum;
+    }
+
+    static long subtract(long a, long b) {
+        long difference = a - b;
+        return (difference < 0) ? difference + PRIME : difference;
+    }
+
+    // 2^64 is 8 modulo the prime, and 2^61 is 1.
+    static long mul(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        long product = (low & PRIME) + (low >>> 61) + (high << 3);
+        product = (product & PRIME) + (product >>> 61);
+        return (product >= PRIME) ? product - PRIME : product;
+    }
+
+    static long pow(long base, long exponent) {
+        long result = 1;
+        for (; exponent > 0; exponent >>= 1) {
+            if ((exponent & 1) != 0) result = mul(result, base);
+            base = mul(base, base);
+        }
+        return result;
+    }
+}
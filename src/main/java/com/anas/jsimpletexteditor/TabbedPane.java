@@ -8,10 +8,20 @@ import com.anas.jsimpletexteditor.tab.Tab;
 import javax.swing.*;
 import java.awt.*;
 import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * The open tabs, and the new tab button. When the text of the tabs takes more memory than
+ * the budget, set with -Djsimpletexteditor.tabMemoryMB (256 by default), those shown
+ * longest ago hibernate until they're shown again.
+ */
 public class TabbedPane extends JTabbedPane {
     @Serial
     private static final long serialVersionUID = 1L;
+    private long memoryBudget = Long.getLong("jsimpletexteditor.tabMemoryMB", 256) * 1024 * 1024;
+    // The tabs in the order they were last shown, the current last.
+    private final List<Tab> shown = new ArrayList<>();
 
     public TabbedPane() {
         super();
@@ -39,13 +49,74 @@ public class TabbedPane extends JTabbedPane {
         return (Tab) super.getSelectedComponent();
     }
 
+    // Unless the tab's kept, or closes itself once it's saved.
     @Override
     public void remove(Component component) {
         if (((Tab) component).exit()) {
-            super.remove(component);
+            close((Tab) component);
         }
     }
 
+    public void close(Tab tab) {
+        if (super.indexOfComponent(tab) < 0) return;
+        super.remove(tab);
+        shown.remove(tab);
+        tab.closed();
+    }
+
+    // Its editor's been made again, so the listeners look at the new one, if it's shown.
+    public void tabChanged(Tab tab) {
+        if (tab == getCurrentTab()) fireStateChanged();
+    }
+
+    // The tab shown is woken before it's shown, and the others hibernated if over the budget.
+    @Override
+    protected void fireStateChanged() {
+        Tab tab = getCurrentTab();
+        if (tab != null) {
+            tab.getTextEditorPane();
+            shown.remove(tab);
+            shown.add(tab);
+        }
+        super.fireStateChanged();
+        hibernateOverBudget();
+    }
+
+    private void hibernateOverBudget() {
+        long use = getMemoryUse();
+        for (Tab tab : shown) {
+            if (use <= memoryBudget) break;
+            if (tab == getCurrentTab() || tab.isHibernating()) continue;
+            long tabUse = tab.getMemoryUse();
+            if (tab.hibernate()) use -= tabUse;
+        }
+    }
+
+    // In bytes.
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        hibernateOverBudget();
+    }
+
+    // Roughly how many bytes the text of the tabs takes in memory, not counting those hibernating.
+    public long getMemoryUse() {
+        long use = 0;
+        for (int i = 0; i < super.getTabCount() - 1; i++) use += ((Tab) super.getComponentAt(i)).getMemoryUse();
+        return use;
+    }
+
+    public int getHibernatingTabCount() {
+        int count = 0;
+        for (int i = 0; i < super.getTabCount() - 1; i++) {
+            if (((Tab) super.getComponentAt(i)).isHibernating()) count++;
+        }
+        return count;
+    }
+
     public boolean anyTabHasChanged() {
         for (int i = 0; i < super.getTabCount() - 1; i++) {
             if (((Tab) super.getComponentAt(i)).hasChange()) {
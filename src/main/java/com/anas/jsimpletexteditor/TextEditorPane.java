@@ -1,5 +1,7 @@
 package com.anas.jsimpletexteditor;
 
+import com.anas.jsimpletexteditor.braille.WordsignDictionaries;
+import com.anas.jsimpletexteditor.braille.WordsignDictionary;
 import com.anas.jsimpletexteditor.files.TextFile;
 import com.anas.jsimpletexteditor.settings.EditorSettings;
 import com.anas.jsimpletexteditor.settings.SettingsChangedEvent;
@@ -7,15 +9,53 @@ import com.anas.jsimpletexteditor.settings.SettingsListener;
 import com.anas.jsimpletexteditor.settings.SettingsManager;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.text.Document;
 //import java.awt.*;
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.List;
 
 public class TextEditorPane extends JScrollPane implements Serializable, SettingsListener {
     @Serial
     private static final long serialVersionUID = 1L;
     private TextAreaBraille textArea;
+    private BraillePreview braillePreview;
+    private FindBar findBar;
+    private JCheckBoxMenuItem braillePreviewItem;
     private TextFile textFile;
+    // Reading the file, until it's all in.
+    private FileLoader loader;
+    // The text as last read or saved, and the document and its revision then, which if still
+    // the same saves comparing the fingerprints.
+    private PieceTable.Fingerprint saved;
+    private PieceTableDocument savedDocument;
+    private int savedRevision;
+    private boolean modified;
+    // The settings as last set on the text and preview, frozen, to only change what's different.
+    private EditorSettings appliedSettings;
+    private final DocumentListener modifiedListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            updateModified();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            updateModified();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {}
+    };
 
     public TextEditorPane(TextFile textFile) {
         super();
@@ -26,8 +66,68 @@ public class TextEditorPane extends JScrollPane implements Serializable, Setting
         refresh();
     }
 
+    // Editing a document already read, such as a hibernated tab's.
+    public TextEditorPane(TextFile textFile, PieceTableDocument document) {
+        super();
+        this.textFile = textFile;
+        init();
+        setup();
+        addComponents();
+        textArea.setDocument(document);
+    }
+
+    /**
+     * Whether the text isn't as it was last read or saved, in O(1): an edit undone counts as
+     * none. Never while the file's being read.
+     */
+    public boolean isModified() {
+        if (loader != null || !(textArea.getDocument() instanceof PieceTableDocument document)) return false;
+        if (document == savedDocument && document.getRevision() == savedRevision) return false;
+        return !document.fingerprint().equals(saved);
+    }
+
+    // Fires "modified" when it changes.
+    private void updateModified() {
+        boolean modified = isModified();
+        if (modified == this.modified) return;
+        this.modified = modified;
+        firePropertyChange("modified", !modified, modified);
+    }
+
+    // The text as it was when the snapshot was taken is what's saved now.
+    public void markSaved(PieceTable.Snapshot snapshot) {
+        setSaved(snapshot.fingerprint());
+        if (isUnchangedSince(snapshot)) markSaved();
+    }
+
+    // Fires "saved", as the text is all as saved.
+    private void markSaved() {
+        savedDocument = (PieceTableDocument) textArea.getDocument();
+        saved = savedDocument.fingerprint();
+        savedRevision = savedDocument.getRevision();
+        updateModified();
+        firePropertyChange("saved", null, saved);
+    }
+
+    public PieceTable.Fingerprint getSavedFingerprint() {
+        return saved;
+    }
+
+    // For a document that was read elsewhere, such as a hibernated tab's.
+    public void setSaved(PieceTable.Fingerprint saved) {
+        this.saved = saved;
+        savedDocument = null;
+        updateModified();
+    }
+
     private void addComponents() {
         super.setViewportView(textArea);
+        textArea.addPropertyChangeListener("document", e -> {
+            if (e.getOldValue() instanceof Document document) document.removeDocumentListener(modifiedListener);
+            if (e.getNewValue() instanceof Document document) document.addDocumentListener(modifiedListener);
+            updateModified();
+        });
+        textArea.getDocument().addDocumentListener(modifiedListener);
     }
 
     private void setup() {
@@ -40,20 +140,134 @@ public class TextEditorPane extends JScrollPane implements Serializable, Setting
     private void setUpThePopupMenu() {
         JPopupMenu popupMenu = new JPopupMenu();
 
+        JMenuItem undoItem = popupMenu.add(new JMenuItem("Undo"));
+        undoItem.addActionListener(e -> textArea.undo());
+        JMenuItem redoItem = popupMenu.add(new JMenuItem("Redo"));
+        redoItem.addActionListener(e -> textArea.redo());
+        JCheckBoxMenuItem chordPreviewItem = new JCheckBoxMenuItem("Chord Preview");
+        chordPreviewItem.addActionListener(e -> textArea.setChordPreview(chordPreviewItem.isSelected()));
+        JCheckBoxMenuItem rolloverItem = new JCheckBoxMenuItem("Split Rolled Chords");
+        rolloverItem.addActionListener(e -> textArea.getChordAssembler().setRollover(rolloverItem.isSelected()));
+        popupMenu.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                undoItem.setEnabled(textArea.canUndo());
+                redoItem.setEnabled(textArea.canRedo());
+                chordPreviewItem.setSelected(textArea.isChordPreview());
+                rolloverItem.setSelected(textArea.getChordAssembler().isRollover());
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {}
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {}
+        });
+        popupMenu.addSeparator();
         popupMenu.add(new JMenuItem("Cut")).addActionListener(e -> textArea.cut());
         popupMenu.add(new JMenuItem("Copy")).addActionListener(e -> textArea.copy());
         popupMenu.add(new JMenuItem("Paste")).addActionListener(e -> textArea.paste());
         popupMenu.addSeparator();
         popupMenu.add(new JMenuItem("Select All")).addActionListener(e -> textArea.selectAll());
         popupMenu.addSeparator();
-        popupMenu.add(new JMenuItem("Find"))
-                .addActionListener(e -> JOptionPane.showMessageDialog(null, "Sooooon :)")); // TODO: Implement find
+        popupMenu.add(new JMenuItem("Find")).addActionListener(e -> findBar.open());
+        popupMenu.addSeparator();
+        braillePreviewItem = new JCheckBoxMenuItem("Braille Preview");
+        braillePreviewItem.addActionListener(e -> setBraillePreviewVisible(braillePreviewItem.isSelected()));
+        popupMenu.add(braillePreviewItem);
+        popupMenu.add(chordPreviewItem);
+        popupMenu.add(rolloverItem);
+        JMenu wordsignsMenu = new JMenu("Wordsigns");
+        wordsignsMenu.addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(MenuEvent e) {
+                fillWordsignsMenu(wordsignsMenu);
+            }
+
+            @Override
+            public void menuDeselected(MenuEvent e) {}
+
+            @Override
+            public void menuCanceled(MenuEvent e) {}
+        });
+        popupMenu.add(wordsignsMenu);
+        JMenu keyboardLayoutMenu = new JMenu("Keyboard Layout");
+        keyboardLayoutMenu.addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(MenuEvent e) {
+                fillKeyboardLayoutMenu(keyboardLayoutMenu);
+            }
+
+            @Override
+            public void menuDeselected(MenuEvent e) {}
+
+            @Override
+            public void menuCanceled(MenuEvent e) {}
+        });
+        popupMenu.add(keyboardLayoutMenu);
 
         textArea.setComponentPopupMenu(popupMenu);
     }
 
+    // The dictionaries to switch between, which change as files are loaded.
+    private void fillWordsignsMenu(JMenu wordsignsMenu) {
+        wordsignsMenu.removeAll();
+        List<WordsignDictionary> dictionaries = WordsignDictionaries.getInstance().getDictionaries();
+        if (!dictionaries.contains(textArea.getWordsigns())) dictionaries.add(textArea.getWordsigns());
+        ButtonGroup group = new ButtonGroup();
+        for (WordsignDictionary dictionary : dictionaries) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(dictionary.getName(), dictionary == textArea.getWordsigns());
+            item.addActionListener(e -> textArea.setWordsigns(dictionary));
+            group.add(item);
+            wordsignsMenu.add(item);
+        }
+        wordsignsMenu.addSeparator();
+        wordsignsMenu.add(new JMenuItem("Load...")).addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new FileNameExtensionFilter("Wordsign dictionaries (properties)", "properties"));
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    textArea.setWordsigns(WordsignDictionaries.getInstance().load(fileChooser.getSelectedFile().toPath()));
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Couldn't load " + fileChooser.getSelectedFile().getName()
+                            + ": " + ex.getMessage(), "Wordsigns", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+
+    // The layouts to switch this tab between, which change as files are loaded.
+    private void fillKeyboardLayoutMenu(JMenu keyboardLayoutMenu) {
+        keyboardLayoutMenu.removeAll();
+        List<KeyboardLayout> layouts = KeyboardLayouts.getInstance().getLayouts();
+        if (!layouts.contains(textArea.getKeyboardLayout())) layouts.add(textArea.getKeyboardLayout());
+        ButtonGroup group = new ButtonGroup();
+        for (KeyboardLayout layout : layouts) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(layout.getName(), layout == textArea.getKeyboardLayout());
+            item.addActionListener(e -> textArea.setKeyboardLayout(layout));
+            group.add(item);
+            keyboardLayoutMenu.add(item);
+        }
+        keyboardLayoutMenu.addSeparator();
+        keyboardLayoutMenu.add(new JMenuItem("Load...")).addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new FileNameExtensionFilter("Keyboard layouts (properties)", "properties"));
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    textArea.setKeyboardLayout(KeyboardLayouts.getInstance().load(fileChooser.getSelectedFile().toPath()));
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Couldn't load " + fileChooser.getSelectedFile().getName()
+                            + ": " + ex.getMessage(), "Keyboard Layout", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+
     private void init() {
         textArea = new TextAreaBraille();
+        braillePreview = new BraillePreview();
+        braillePreview.setVisible(false);
+        findBar = new FindBar(textArea);
     }
 
     public void setTextFile(TextFile textFile) {
@@ -64,29 +278,157 @@ public class TextEditorPane extends JScrollPane implements Serializable, Setting
         return textFile;
     }
 
-    public JTextArea getTextArea() {
+    public TextAreaBraille getTextArea() {
         return textArea;
     }
 
+    public BraillePreview getBraillePreview() {
+        return braillePreview;
+    }
+
+    public FindBar getFindBar() {
+        return findBar;
+    }
+
+    /**
+     * Shows the braille preview under the text, which is only kept up to date while it's shown.
+     * @param visible whether to show it
+     */
+    public void setBraillePreviewVisible(boolean visible) {
+        if (visible) {
+            braillePreview.attach(textArea);
+        } else {
+            braillePreview.detach();
+        }
+        braillePreview.setVisible(visible);
+        braillePreviewItem.setSelected(visible);
+        if (braillePreview.getParent() != null) braillePreview.getParent().revalidate();
+    }
+
+    public boolean isBraillePreviewVisible() {
+        return braillePreview.isVisible();
+    }
+
+    /**
+     * Shows a document read elsewhere, such as one recovered after a crash, instead of the file.
+     * @param saved the fingerprint of the file's text
+     */
+    public void restore(PieceTableDocument document, PieceTable.Fingerprint saved) {
+        cancelLoading();
+        loader = null;
+        textArea.setDocument(document);
+        textArea.setEditable(true);
+        setSaved(saved);
+    }
+
+    // Roughly how many bytes the text takes, or will once it's all read.
+    public long getMemoryUse() {
+        return (textArea.getDocument() instanceof PieceTableDocument document) ? document.getMemoryUse() : 0;
+    }
+
+    /**
+     * Reads the file again in the background. The text area shows it as it comes in, but
+     * can't be edited until it's all in.
+     */
     public void refresh() {
-        textArea.setText(textFile.getText());
+        cancelLoading();
+        loader = null;
+        if (!textFile.exists() || !textFile.canRead()) {
+            textArea.setDocument(new PieceTableDocument());
+            markSaved();
+            return;
+        }
+        FileLoader loader = new FileLoader(textFile, textFile.getCharset());
+        this.loader = loader;
+        textArea.setDocument(loader.getDocument());
+        textArea.setEditable(false);
+        loader.addPropertyChangeListener(e -> {
+            if ("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE) {
+                loaded(loader);
+            }
+        });
+        loader.execute();
+    }
+
+    private void loaded(FileLoader loader) {
+        if (loader != this.loader || loader.isCancelled()) return;
+        try {
+            loader.get();
+            this.loader = null;
+            markSaved();
+            textArea.setEditable(true);
+            textArea.setCaretPosition(0);
+        } catch (Exception e) {
+            // Left as it is, so what was read can be looked at, but not saved over the file.
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            JOptionPane.showMessageDialog(this, "Couldn't open " + textFile.getName() + ": " + cause.getMessage(),
+                    "Open", JOptionPane.ERROR_MESSAGE);
+        }
     }
 
-    public boolean save(String path) {
-        return textFile.save(path, textArea.getText());
+    // The loader while the file's being read, or if that failed or was cancelled, else null.
+    public FileLoader getLoader() {
+        return loader;
+    }
+
+    public boolean isLoading() {
+        return loader != null && !loader.isDone();
+    }
+
+    public void cancelLoading() {
+        if (loader != null) loader.cancel(false);
+    }
+
+    /**
+     * Starts writing the text as it is now to the path, in the file's charset, while it can
+     * still be edited. Refused while only part of the file is in.
+     * @return the saver, or null if refused
+     */
+    public FileSaver save(String path) {
+        if (loader != null || !(textArea.getDocument() instanceof PieceTableDocument document)) return null;
+        return FileSaver.save(Path.of(path), document.snapshot(), textFile.getCharset());
+    }
+
+    // Whether the text is as it was when the snapshot was taken.
+    public boolean isUnchangedSince(PieceTable.Snapshot snapshot) {
+        return textArea.getDocument() instanceof PieceTableDocument document && document.isUnchangedSince(snapshot);
+    }
+
+    // Listening only while shown, so closed and hibernated tabs aren't kept, and catching up
+    // with what changed while not.
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        SettingsManager settingsManager = SettingsManager.getInstance();
+        settingsManager.addSettingsListener(this);
+        setUpUI((EditorSettings) settingsManager.getEditorSettings());
+    }
+
+    @Override
+    public void removeNotify() {
+        SettingsManager.getInstance().removeSettingsListener(this);
+        super.removeNotify();
     }
 
     @Override
     public void onSettingsChanged(SettingsChangedEvent event) {
         setUpUI(event.getEditorSettings());
-        textArea.revalidate();
-        textArea.repaint();
     }
 
+    // A font changed relays out, and colours only repaint, which the setters see to.
     private void setUpUI(EditorSettings settings) {
-        textArea.setFont(settings.getFont());
-        textArea.setForeground(settings.getTextColor());
-        textArea.setBackground(settings.getBackgroundColor());
-        textArea.setCaretColor(settings.getTextColor());
+        JTextArea previewArea = braillePreview.getPreviewArea();
+        if (SettingsChangedEvent.isFontChanged(appliedSettings, settings)) {
+            textArea.setFont(settings.getFont());
+            previewArea.setFont(settings.getFont());
+        }
+        if (SettingsChangedEvent.isColorChanged(appliedSettings, settings)) {
+            textArea.setForeground(settings.getTextColor());
+            textArea.setBackground(settings.getBackgroundColor());
+            textArea.setCaretColor(settings.getTextColor());
+            previewArea.setForeground(settings.getTextColor());
+            previewArea.setBackground(settings.getBackgroundColor());
+        }
+        appliedSettings = settings;
     }
 }
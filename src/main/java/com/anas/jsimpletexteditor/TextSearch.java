@@ -0,0 +1,144 @@
+package com.anas.jsimpletexteditor;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A query to find in text read through a CharSequence, such as a PieceTable.Snapshot, so the
+ * document isn't copied. A literal query is found by Boyer-Moore-Horspool, which skips up to
+ * its length at each step, and a regular expression by java.util.regex.
+ */
+public final class TextSearch {
+    private final String query;
+    private final boolean matchCase;
+    private final Pattern pattern;
+    // For a literal query: the query as compared, and how far to skip on each last character,
+    // by its low byte.
+    private final char[] literal;
+    private final int[] skips;
+
+    private TextSearch(String query, boolean matchCase, Pattern pattern) {
+        this.query = query;
+        this.matchCase = matchCase;
+        this.pattern = pattern;
+        if (pattern != null) {
+            literal = null;
+            skips = null;
+            return;
+        }
+        literal = new char[query.length()];
+        for (int i = 0; i < literal.length; i++) literal[i] = fold(query.charAt(i));
+        skips = new int[256];
+        Arrays.fill(skips, Math.max(1, literal.length));
+        // Characters sharing a low byte share the smaller skip, which is still safe.
+        for (int i = 0; i < literal.length - 1; i++) skips[literal[i] & 0xFF] = literal.length - 1 - i;
+    }
+
+    /**
+     * @param regex whether the query is a regular expression
+     * @throws PatternSyntaxException if it's not a valid one
+     */
+    public static TextSearch of(String query, boolean regex, boolean matchCase) {
+        if (!regex) return new TextSearch(query, matchCase, null);
+        int flags = Pattern.MULTILINE | (matchCase ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        return new TextSearch(query, matchCase, Pattern.compile(query, flags));
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean isEmpty() {
+        return query.isEmpty();
+    }
+
+    /**
+     * The matches from from, that end by to, in order and not overlapping.
+     */
+    public Matches matches(CharSequence text, int from, int to) {
+        return new Matches(text, from, to);
+    }
+
+    private char fold(char c) {
+        return matchCase ? c : Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    public final class Matches {
+        private final CharSequence text;
+        private final int to;
+        private final Matcher matcher;
+        private int start = -1;
+        private int end;
+        // Where to look next.
+        private int at;
+        // Where appendReplacement carries on from.
+        private int lastEnd;
+
+        private Matches(CharSequence text, int from, int to) {
+            this.text = text;
+            this.to = to;
+            at = from;
+            if (pattern != null) {
+                // Lookarounds and anchors see the text past the ends, as the region is only part of it.
+                matcher = pattern.matcher(text).region(from, to).useTransparentBounds(true).useAnchoringBounds(false);
+            } else {
+                matcher = null;
+            }
+        }
+
+        public boolean find() {
+            if (matcher != null) {
+                if (!matcher.find()) return false;
+                start = matcher.start();
+                end = matcher.end();
+                return true;
+            }
+            int length = literal.length;
+            if (length == 0) return false;
+            char last = literal[length - 1];
+            for (int i = at; i <= to - length; ) {
+                char c = fold(text.charAt(i + length - 1));
+                if (c == last && matchesAt(i)) {
+                    start = i;
+                    end = i + length;
+                    at = end;
+                    return true;
+                }
+                i += skips[c & 0xFF];
+            }
+            at = to;
+            return false;
+        }
+
+        private boolean matchesAt(int i) {
+            for (int j = literal.length - 2; j >= 0; j--) {
+                if (fold(text.charAt(i + j)) != literal[j]) return false;
+            }
+            return true;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        /**
+         * What the match is replaced with: the replacement as it is for a literal query, and
+         * for a regular expression with $n and ${name} filled in from the match.
+         */
+        public String replacement(String replacement) {
+            if (matcher == null) return replacement;
+            // appendReplacement adds the text since the last match first, which is dropped.
+            StringBuilder builder = new StringBuilder();
+            int before = start - lastEnd;
+            matcher.appendReplacement(builder, replacement);
+            lastEnd = end;
+            return builder.substring(before);
+        }
+    }
+}
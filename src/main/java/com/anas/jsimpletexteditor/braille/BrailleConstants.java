@@ -0,0 +1,87 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+
+// The codes and key data shared by the decoder and the table definitions.
+// Kept apart from BrailleTables so that decoding from a snapshot never builds the tables.
+// KeyEvent is only referenced for its compile time constants.
+final class BrailleConstants {
+	private BrailleConstants() {}
+
+	// QUALIFIERS
+	static final int DIGIT = 60;
+	static final int SHIFT8 = 8;
+	static final int SHIFT40 = 40;
+	static final int SHIFT48 = 48;
+	static final int SHIFT = 32;
+	static final int GRADE1 = SHIFT48;
+
+	// PINCODES
+	// SPECIAL. Raw keys are stored under the negative of their keycode.
+	static final int ENTER = 128;
+	static final int ENTER_RAW = -KeyEvent.VK_ENTER;
+	static final int TAB_RAW = -KeyEvent.VK_TAB;
+	static final int SPACE = -KeyEvent.VK_SPACE;
+	static final int BACKSPACE = -KeyEvent.VK_BACK_SPACE;
+
+	// KEYDATA INDEXES
+	static final int LOWER = 0;
+	static final int UPPER = 1;
+	static final int UPPER_WITH_LOWER = 2;
+	static final int LOWER_WITH_UPPER = 3; // Not always possible.
+	static final int SUB_LOWER = 3;
+	static final int SUB_UPPER = 4;
+	static final int LEFT_CHAR = 0;
+	static final int RIGHT_CHAR = 1;
+
+	// SOME COMMON KEYDATA
+	static final KeyData KD_BACKSPACE = new KeyData('\b', KeyEvent.VK_BACK_SPACE);
+	static final KeyData KD_ENTER = new KeyData('\n', KeyEvent.VK_ENTER);
+	static final KeyData KD_SPACE = new KeyData(' ', KeyEvent.VK_SPACE);
+	static final KeyData KD_TAB = new KeyData('\t', KeyEvent.VK_TAB);
+	static final KeyData KD_Gsigma = new KeyData('σ');
+	static final KeyData KD_Gsigma_FINAL = new KeyData('ς');
+	static final KeyData[] KD_LIGATURE = join(new KeyData('\uFE20'), new KeyData('\uFE21'));
+	static final MapData MD_SIGMA_FINAL = new MapData(MapData.STRING, join(KD_BACKSPACE, KD_Gsigma_FINAL), null);
+
+	static final HashMap<Integer, KeyData> WHITESPACES = new HashMap<Integer, KeyData>();
+	static {
+		WHITESPACES.put(ENTER, KD_ENTER);
+		WHITESPACES.put(ENTER_RAW, KD_ENTER);
+		WHITESPACES.put(SPACE, KD_SPACE);
+		WHITESPACES.put(TAB_RAW, KD_TAB);
+	}
+
+
+	// For pin codes and key data only, as a generic array handed back could pollute the heap.
+	static Integer[] join(Integer... items) {
+		return Arrays.copyOf(items, items.length);
+	}
+	static Integer[] join(Integer[] arr, Integer... items) {
+		Integer[] newArr = Arrays.copyOf(arr, arr.length + items.length);
+		System.arraycopy(items, 0, newArr, arr.length, items.length);
+		return newArr;
+	}
+	static KeyData[] join(KeyData... items) {
+		return Arrays.copyOf(items, items.length);
+	}
+	@SafeVarargs
+	static <T> ArrayList<T> join(List<T>... items) {
+		ArrayList<T> result = new ArrayList<T>();
+		for (List<T> item: items) {
+			result.addAll(item);
+		}
+		return result;
+	}
+	static <T> ArrayList<T> join(T item, List<T> itemAL) {
+		ArrayList<T> result = new ArrayList<T>();
+		result.add(item);
+		result.addAll(itemAL);
+		return result;
+	}
+}
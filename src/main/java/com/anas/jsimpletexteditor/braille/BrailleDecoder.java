@@ -0,0 +1,576 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static com.anas.jsimpletexteditor.braille.BrailleConstants.*;
+
+
+/*
+ * Turns a stream of chords into print text, independent of any text component.
+ *
+ * A chord is the pin code of the keys held when the first of them was released (pin 1
+ * is 1, pin 8 is 128), or one of the raw codes below for keys that are passed through.
+ * Each chord produces at most one edit: remove a number of the preceding characters, then
+ * insert some text. Not thread safe; use one decoder per input stream.
+ */
+public final class BrailleDecoder {
+	private static final Logger log = Logger.getLogger("BrailleDecoder");
+
+	// Raw keys, stored under the negative of their keycode.
+	public static final int SPACE = BrailleConstants.SPACE;
+	public static final int BACKSPACE = BrailleConstants.BACKSPACE;
+	public static final int TAB = -9;
+	// Dot 8 on its own.
+	public static final int ENTER = BrailleConstants.ENTER;
+
+	public interface Output {
+		// Remove the backspaces characters before the caret, then insert the text.
+		void edit(int backspaces, CharSequence text);
+	}
+
+	// Applies the edits to a StringBuilder, for decoding without a text component.
+	public static class TextOutput implements Output {
+		private final StringBuilder text = new StringBuilder();
+
+		@Override
+		public void edit(int backspaces, CharSequence inserted) {
+			text.setLength(Math.max(0, text.length() - backspaces));
+			text.append(inserted);
+		}
+
+		public StringBuilder getText() {
+			return text;
+		}
+	}
+
+	private static final BrailleTrie BRAILLE_TRIE = BrailleSnapshot.tables().trie;
+
+	private static enum LOCK {
+		OFF, CHAR, WORD, FULL {
+			@Override
+			public LOCK next() {
+				return values()[0];
+			};
+		};
+		public LOCK next() {return values()[ordinal() + 1];}
+		public LOCK charReset()  {return (ordinal() < 2) ? OFF : values()[ordinal()];}
+		public LOCK wordReset() {return (ordinal() < 3) ? OFF : FULL;}
+		public LOCK reset() {return OFF;}
+		public boolean isOn() {return ordinal() > 0;}
+		public boolean isOff() {return ordinal() == 0;}
+		public boolean isSymbol() {return ordinal() == 1;}
+	};
+
+	private final Output output;
+	private int currentPinCode = 0;
+	private ArrayList<Integer> currentPinCodesList = new ArrayList<Integer>();
+	private ArrayDeque<History> recentHistory = new ArrayDeque<History>(2);
+	private WordsignDictionary wordsigns = WordsignDictionaries.getInstance().getDefault();
+	// Its table when last looked at, to carry on with should it be dropped.
+	private MapData[] wordsignTable = wordsigns.prepare();
+	private LOCK grade1 = LOCK.OFF; // Only in use to block alphabetic wordsigns. On or Off only.
+	private LOCK shift = LOCK.OFF;
+	private LOCK shift40 = LOCK.OFF;
+	private LOCK digit = LOCK.OFF;
+
+	// The edit for the chord being decoded.
+	private int pendingBackspaces = 0;
+	private final StringBuilder pendingText = new StringBuilder();
+
+	// What the chord being decoded resolved to, kept only while tracing.
+	private final ChordTrace trace = ChordTrace.getInstance();
+	private boolean tracing = false;
+	private final ArrayList<Integer> tracedSequence = new ArrayList<Integer>();
+	private int tracedType = ChordTrace.NO_TYPE;
+	// Where the edit goes while previewing, rather than the output.
+	private Output previewOutput;
+
+	public BrailleDecoder(Output output) {
+		this.output = output;
+		// Initialise as if we've just had whitespace, arbitrarily ENTER.
+		recentHistory.add(new History(new ArrayList<Integer>(Arrays.asList(ENTER)), BRAILLE_TRIE.get(ENTER), BRAILLE_TRIE.get(ENTER).getKeyData(), false, false));
+		recentHistory.add(new History(new ArrayList<Integer>(Arrays.asList(ENTER)), BRAILLE_TRIE.get(ENTER), BRAILLE_TRIE.get(ENTER).getKeyData(), false, false));
+	}
+
+	// Decodes a whole sequence, returning the resulting text.
+	public static String decode(int... chords) {
+		TextOutput textOutput = new TextOutput();
+		BrailleDecoder decoder = new BrailleDecoder(textOutput);
+		for (int chord: chords) {
+			decoder.chord(chord);
+		}
+		return textOutput.getText().toString();
+	}
+
+	public void chord(int pinCode) {
+		currentPinCode = pinCode;
+		tracing = previewOutput == null && trace.isEnabled();
+		long start = 0;
+		if (tracing) {
+			start = System.nanoTime();
+			tracedSequence.clear();
+			tracedType = ChordTrace.NO_TYPE;
+		}
+		try {
+			decodeChord();
+		} catch (RuntimeException e) {
+			if (tracing) log.severe("CHORD FAILED: " + pinCode + "\n" + trace.dump());
+			throw e;
+		} finally {
+			flush();
+			if (tracing) trace.record(pinCode, tracedSequence, lockStates(), tracedType, start, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Decodes the chord as if it were released now, for the edit it would make to go to the
+	 * preview rather than the output, and then puts the decoder back as it was. Not traced.
+	 * @return whether it decoded
+	 */
+	public boolean preview(int pinCode, Output preview) {
+		State state = getState();
+		previewOutput = preview;
+		try {
+			chord(pinCode);
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		} finally {
+			previewOutput = null;
+			setState(state);
+		}
+	}
+
+	// The lock states after the chord, packed for the trace.
+	private int lockStates() {
+		return grade1.ordinal() | shift.ordinal() << 2 | shift40.ordinal() << 4 | digit.ordinal() << 6;
+	}
+
+	private void traceMapData(MapData md) {
+		if (!tracing) return;
+		tracedSequence.clear();
+		for (int i = 0; i < currentPinCodesList.size(); i++) {
+			tracedSequence.add(currentPinCodesList.get(i));
+		}
+		tracedType = (md == null) ? ChordTrace.NO_TYPE : md.getType();
+	}
+
+	// The locks and what the next chord is decoded after, to put back when a chord is undone.
+	public static final class State {
+		private final LOCK grade1;
+		private final LOCK shift;
+		private final LOCK shift40;
+		private final LOCK digit;
+		private final ArrayList<Integer> pinCodes;
+		private final History[] history;
+
+		private State(BrailleDecoder decoder) {
+			grade1 = decoder.grade1;
+			shift = decoder.shift;
+			shift40 = decoder.shift40;
+			digit = decoder.digit;
+			pinCodes = new ArrayList<Integer>(decoder.currentPinCodesList);
+			history = new History[decoder.recentHistory.size()];
+			int i = 0;
+			for (History h: decoder.recentHistory) {
+				history[i++] = new History(h.pinCodeList, h.mapData, h.keyData, h.shift, h.grade1);
+			}
+		}
+	}
+
+	public State getState() {
+		return new State(this);
+	}
+
+	public void setState(State state) {
+		grade1 = state.grade1;
+		shift = state.shift;
+		shift40 = state.shift40;
+		digit = state.digit;
+		currentPinCodesList = new ArrayList<Integer>(state.pinCodes);
+		// Copied again, as they're reused.
+		recentHistory.clear();
+		for (History h: state.history) {
+			recentHistory.add(new History(h.pinCodeList, h.mapData, h.keyData, h.shift, h.grade1));
+		}
+	}
+
+	public WordsignDictionary getWordsigns() {
+		return wordsigns;
+	}
+
+	// Takes effect from the next wordsign.
+	public void setWordsigns(WordsignDictionary wordsigns) {
+		this.wordsignTable = wordsigns.prepare();
+		this.wordsigns = wordsigns;
+	}
+
+	// Whether decoding could carry on with a new decoder from here: whitespace last, no locks
+	// and no sequence in progress. A blank line usually leaves it so, but not inside a passage.
+	public boolean isAtRest() {
+		if (grade1.isOn() || shift.isOn() || shift40.isOn() || digit.isOn()) return false;
+		if (!currentPinCodesList.isEmpty()) return false;
+		for (History history: recentHistory) {
+			if (!history.mapData.isWhitespace() || history.shift || history.grade1) return false;
+		}
+		return true;
+	}
+
+	private void decodeChord() {
+		// Pass through. Reset shift below Caps Lock (3) for white space.
+		if (currentPinCode == BACKSPACE || currentPinCode == TAB) {
+			MapData md = BRAILLE_TRIE.get(currentPinCode);
+			traceMapData(md);
+			emit(md.getKeyData());
+			updateRecentHistory(md, md.getKeyData());
+			wordResets();
+			currentPinCodesList.clear();
+			qualifyPinCode();
+			return;
+		}
+
+		// Getting engaged when it's the last key left of a larger combination, so only after a keyDown
+		// Can't have shift and digit engaged simultaneously, as they both use A-J.
+		if (currentPinCode == GRADE1 ||
+			currentPinCode == SHIFT ||
+			currentPinCode == SHIFT40 ||
+			currentPinCode == DIGIT) {
+			if (!(currentPinCodesList.size() > 0 && currentPinCodesList.get(0) == SHIFT8)) {
+				if (currentPinCode == GRADE1 && grade1.isOff()) { // On or Off only, for 1 character.
+					grade1 = grade1.next();
+					// Doesn't reset shifts or digit as only affects contraction.
+				} else if (currentPinCode == SHIFT) {
+					shift = shift.next();
+					// Doesn't reset other shifts
+				} else if (currentPinCode == SHIFT40) {
+					shift40 = shift40.next();
+					// Doesn't reset other shifts
+					popQualifiers();
+					qualifyPinCode();
+				} else if (currentPinCode == DIGIT) {
+					digit = digit.next();
+					// Resets both shifts.
+					popQualifiers();
+					qualifyPinCode();
+				}
+				return;
+			}
+		}
+
+		// Find the assocaited MapData, if it exists.
+		if (isWhitespace(currentPinCode)) popQualifiers();
+		currentPinCodesList.add(currentPinCode);
+		MapData md = parsePinCodes();
+		traceMapData(md);
+		if (md == null) {
+			int originalPinCodesListLength = currentPinCodesList.size();
+			// This should only ever recurse once.
+			currentPinCodesList.clear();
+			charResets();
+			qualifyPinCode();
+			// A good proxy for ensuring we don't wind up retrying the same failed code sequence.
+			if (currentPinCodesList.size() != originalPinCodesListLength - 1) {
+				decodeChord();
+			}
+			return;
+		}
+		if (md.getKeyDataLists() != null) {
+			// Send character sequence.
+			if (md.isAlphabet() && !md.isCharacter()) {
+				List<KeyData> kd = md.getKeyData(shift.isOn());
+				emit(kd);
+				updateRecentHistory(md, kd);
+			} else if (md.isFinal()) {
+				List<KeyData> kd = md.getKeyData();
+				emit(kd);
+				updateRecentHistory(md, kd);
+			}
+		}
+		if (!md.isOverflow()) {
+			// Reset the pin code sequence, as one way or another it is done with.
+			currentPinCodesList.clear();
+		}
+
+		// Deal with word locks of shift and digit
+		if (md.isWhitespace()) {
+			wordResets();
+		}
+
+		if (!md.isOverflow()) {
+			charResets();
+			// If shift or digit are locked, add to the pin code sequence now.
+			// They won't both be set. Shifts can be set together.
+			qualifyPinCode();
+		}
+	}
+
+	private void charResets() {
+		grade1 = grade1.charReset();
+		shift = shift.charReset();
+		shift40 = shift40.charReset();
+		digit = digit.charReset();
+	}
+
+	private void wordResets() {
+		grade1 = grade1.wordReset();
+		shift = shift.wordReset();
+		shift40 = shift40.wordReset();
+		digit = digit.wordReset();
+	}
+
+	private void qualifyPinCode() {
+		// GRADE1 and SHIFT are operating just off the class variable.
+		// SHIFT40 and DIGIT are used as part of the mappings currently,
+		// so for ease need to be part of the pin code array.
+		if (digit.isOn()) currentPinCodesList.add(DIGIT);
+		if (shift40.isOn()) {
+			currentPinCodesList.add(SHIFT40);
+			// GRKK requires DIGIT + SHIFT40 or double SHIFT4O
+			if (!shift40.isSymbol() && digit.isOff()) {
+				currentPinCodesList.add(SHIFT40);
+			}
+		}
+	}
+
+	private void updateRecentHistory(MapData md, List<KeyData> kd) {
+		History oldest = recentHistory.removeFirst();
+		oldest.set(currentPinCodesList, md, kd, shift.isOn(), grade1.isOn());
+		recentHistory.addLast(oldest);
+	}
+
+	private void popQualifiers() {
+		if (currentPinCodesList.size() == 0) return;
+		int finalIndex = currentPinCodesList.size() - 1;
+		int finalPinCode = currentPinCodesList.get(finalIndex);
+		if (((finalPinCode & SHIFT40) > 0 && (finalPinCode & ~SHIFT40) == 0) || finalPinCode == DIGIT) {
+			currentPinCodesList.remove(finalIndex);
+			// For shift combinations.
+			if (finalPinCode != DIGIT) popQualifiers();
+		}
+	}
+
+	private boolean isWhitespace(int pinCode) {
+		return WHITESPACES.containsKey(pinCode);
+	}
+
+
+	private int __getNodeFromBrailleTrie(int[] pcIndex) {
+		return __getNodeFromTrie(pcIndex, BrailleTrie.ROOT);
+	}
+
+	// Walks the compiled trie from node, returning the node reached or NONE.
+	private int __getNodeFromTrie(int[] pcIndex, int node) {
+		int result = BrailleTrie.NONE;
+		while (pcIndex[0] < currentPinCodesList.size() && BRAILLE_TRIE.branches(node)) {
+			node = BRAILLE_TRIE.child(node, currentPinCodesList.get(pcIndex[0]));
+			pcIndex[0]++;
+			if (node == BrailleTrie.NONE) return BrailleTrie.NONE;
+			result = node;
+			if (BRAILLE_TRIE.data(node).isConcrete()) return node;
+		}
+		return result;
+	}
+
+	private MapData getModifiedAlphabet(int modifierNode, int pinCode) {
+		return BRAILLE_TRIE.data(BRAILLE_TRIE.child(modifierNode, pinCode));
+	}
+
+	private MapData parsePinCodes() {
+		int pinCodeCount = currentPinCodesList.size();
+		// I really want to pass and update this in a couple of helper functions.
+		// For such limited use this is probably the most efficient way, if a little ugly.
+		int[] pcIndex = {0};
+		MapData mdModifier = null;
+		int modifierNode = BrailleTrie.NONE;
+		MapData mdLigature = null;
+
+		// GRADE1 is actually SHIFT48
+		if (!recentHistory.getLast().mapData.isStandAloneMarker() &&
+			grade1.isOn() && currentPinCodesList.get(0) != SHIFT48) {
+				currentPinCodesList.add(0, SHIFT48);
+		}
+
+		MapData md = null;
+		while (pcIndex[0] < pinCodeCount) {
+			int node = __getNodeFromBrailleTrie(pcIndex);
+			md = BRAILLE_TRIE.data(node);
+			if (md == null) return null;
+			if (md.isFinal()) { // Not just a modifier
+				// In the rare case where this is also an overflow, check further.
+				// The next code should always be concrete, and so far no double overflows of this sort.
+				if (md.isOverflow() && pcIndex[0] < pinCodeCount) {
+					MapData mdOverflow = BRAILLE_TRIE.data(__getNodeFromTrie(pcIndex, node));
+					if (mdOverflow != null) {
+						return mdOverflow;
+					} else {
+						// Otherwise we need to start again with the final pincode.
+						Integer finalPinCode = currentPinCodesList.get(pinCodeCount-1);
+						currentPinCodesList.clear();
+						qualifyPinCode();
+						currentPinCodesList.add(finalPinCode);
+						return parsePinCodes();
+					}
+				}
+
+				if (md.isString()) {
+					int type = md.getType() & ~MapData.ALPHABET;
+					List<List<KeyData>> keyData = md.getKeyDataLists();
+					List<KeyData> kd;
+					if (shift.isOff()) {
+						kd = keyData.get(LOWER);
+					} else if (shift.isSymbol()) {
+						kd = keyData.get(UPPER_WITH_LOWER);
+					} else {
+						kd = keyData.get(UPPER);
+					}
+					// We may need to substitute.
+					if (md.isWordSign() && keyData.size() == 5) {
+						return new MapData(type, Arrays.asList(kd, null, null, keyData.get(SUB_LOWER), keyData.get(SUB_UPPER)));
+					}
+					return new MapData(type, kd, null);
+				}
+
+				if (md.isAlphabet()) {
+					MapData result = md;
+					// Can't also be modified, ligatured or a standalone marker.
+
+					// Apply any modifier
+					if (mdModifier != null) {
+						MapData mdModified =
+							getModifiedAlphabet(modifierNode, currentPinCode);
+						if (mdModified == null) {
+							result = new MapData(MapData.ALPHABET | MapData.CHARACTER, join(md.getKeyData(shift.isOn()), mdModifier.getKeyData()), null);
+						} else {
+							// On rare combinations there is only a normalized char for one case.
+							if (mdModified.getKeyData(shift.isOn()) == null) {
+								result = new MapData(MapData.ALPHABET | MapData.CHARACTER, join(md.getKeyData(shift.isOn()), mdModifier.getKeyData()), null);
+							} else {
+								result = mdModified;
+							}
+						}
+					}
+					if (mdLigature != null && md.isAlphabet()) {
+						// Is the precidimg character an alphabet?
+						History lastHistory = recentHistory.getLast();
+						if (lastHistory.mapData.isAlphabet()) {
+							// Is there a single character for this ligature?
+							Integer lastAlphabetPinCode =
+								lastHistory.pinCodeList.get(lastHistory.pinCodeList.size() - 1);
+							int leftNode = BRAILLE_TRIE.child(BrailleTrie.ROOT, lastAlphabetPinCode);
+							MapData leftMapData = BRAILLE_TRIE.data(leftNode);
+							MapData rightMapData = null;
+							if (leftMapData.hasLigature()) {
+								rightMapData = BRAILLE_TRIE.data(BRAILLE_TRIE.child(leftNode, currentPinCode));
+							}
+							if (rightMapData != null && rightMapData.getKeyData(shift.isOn()) != null) {
+								result = new MapData(MapData.ALPHABET | MapData.CHARACTER, join(KD_BACKSPACE, rightMapData.getKeyData(shift.isOn())), null);
+							} else {
+								ArrayList<KeyData> lkd = new ArrayList<KeyData>();
+								lkd.add(KD_LIGATURE[LEFT_CHAR]);
+								if (md.isAlphabet()) {
+									lkd.addAll(md.getKeyData(shift.isOn()));
+								} else {
+									lkd.addAll(md.getKeyData());
+								}
+								lkd.add(KD_LIGATURE[RIGHT_CHAR]);
+								result = new MapData(MapData.ALPHABET | MapData.CHARACTER, lkd, null);
+							}
+						}
+					}
+					return result;
+				} // else // CHARACTER, STRING, none of which can't be modified.
+
+				// Terminal sigma.
+				if (md.isStandAloneMarker() &&
+					recentHistory.getLast().keyData.get(0) == KD_Gsigma) {
+						emit(MD_SIGMA_FINAL.getKeyDataLists().get(0));
+				}
+
+				if (md.isStandAloneMarker() &&
+					recentHistory.getFirst().mapData.isStandAloneMarker() &&
+					recentHistory.getLast().mapData.isWordSign() &&
+					!recentHistory.getLast().grade1 &&
+					!grade1.isOn()) {
+					MapData result = md;
+					// Should be a single pin code.
+					History last = recentHistory.getLast();
+					Integer prevPinCode = last.pinCodeList.get(0);
+					if (prevPinCode == SHIFT40) {
+						// The annoying overloaded Greek alphabet/end signs.
+						if (recentHistory.getLast().shift) {
+							result = new MapData(MapData.STRING, last.mapData.getKeyDataLists().get(SUB_UPPER), null);
+						} else {
+							result = new MapData(MapData.STRING, last.mapData.getKeyDataLists().get(SUB_LOWER), null);
+						}
+						recentHistory.getLast().mapData = result;
+						emit(result.getKeyDataLists().get(0));
+					} else {
+						// The normal single code wordsigns.
+						MapData[] signs = wordsigns.getSigns();
+						if (signs != null) wordsignTable = signs;
+						MapData asMapData = WordsignDictionary.get(wordsignTable, prevPinCode);
+						// Ensure a contraction is defined.
+						if (asMapData != null) {
+							if (!asMapData.isSubstitution()) {
+								result = new MapData(MapData.STRING, asMapData.getKeyDataLists().get((shift.isOn()) ? UPPER : LOWER), null);
+							} else {
+								if (recentHistory.getLast().shift == shift.isOn()) {
+									result = new MapData(MapData.STRING, asMapData.getKeyDataLists().get((shift.isOn()) ? UPPER : LOWER), null);
+								} else if (shift.isOn()) {
+									result = new MapData(MapData.STRING, asMapData.getKeyDataLists().get(LOWER_WITH_UPPER), null);
+								} else {
+									result = new MapData(MapData.STRING, asMapData.getKeyDataLists().get(UPPER_WITH_LOWER), null);
+								}
+							}
+							if (result.getKeyDataLists().get(0) != null) {
+								// In case of ; or ? which are also standalones.
+								recentHistory.getLast().mapData = result;
+								emit(result.getKeyDataLists().get(0));
+							}
+						}
+					}
+				}
+
+				// The SHIFT 48 Groupsigns when not blocking an alphabetic contraction,
+
+
+				return md;
+			}
+			if (md.isModifier()) {
+				mdModifier = md;
+				modifierNode = node;
+			}
+			if (md.isLigature()) {mdLigature = md;}
+		}
+
+		return md;
+	}
+
+
+	// Folds the key data into the chord's pending edit.
+	private void emit(List<KeyData> keyData) {
+		for (KeyData kd: keyData) {
+			if (kd.getKeyChar() == KD_BACKSPACE.getKeyChar()) {
+				if (pendingText.length() > 0) {
+					pendingText.setLength(pendingText.length() - 1);
+				} else {
+					pendingBackspaces++;
+				}
+			} else {
+				pendingText.append(kd.getKeyChar());
+			}
+		}
+	}
+
+	private void flush() {
+		if (pendingBackspaces > 0 || pendingText.length() > 0) {
+			((previewOutput != null) ? previewOutput : output).edit(pendingBackspaces, pendingText);
+		}
+		pendingBackspaces = 0;
+		pendingText.setLength(0);
+	}
+}
@@ -0,0 +1,177 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/*
+ * Translates braille files into print text, with the same decoding rules as typing.
+ *
+ * Both ASCII braille (.brf) and Unicode braille (U+2800 to U+28FF) are read, and may even
+ * be mixed, as every cell maps to the pin code typed for it. Line breaks, form feeds and
+ * tabs become ENTER and TAB; anything else outside those tables is skipped.
+ *
+ * The input is streamed in chunks and cut into batches at blank lines, where a new decoder
+ * is in the same state as one that has carried on. So the batches are decoded in parallel,
+ * one decoder each, and joined in order. Should a batch end with its decoder not at rest,
+ * eg: inside a capitals passage, the next batch is decoded again carrying on from it.
+ */
+public final class BrailleImport {
+	private static final int SKIP = Integer.MIN_VALUE;
+	// North American ASCII braille, indexed by the pin code of dots 1 to 6.
+	private static final String BRAILLE_ASCII =
+		" A1B'K2L@CIF/MSP\"E3H9O6R^DJG>NTQ,*5<-U8V.%[$+X!&;:4\\0Z7(_?W]#Y)=";
+	private static final int[] ASCII_PIN_CODES = new int[128];
+	static {
+		Arrays.fill(ASCII_PIN_CODES, SKIP);
+		for (int pinCode = 0; pinCode < BRAILLE_ASCII.length(); pinCode++) {
+			ASCII_PIN_CODES[BRAILLE_ASCII.charAt(pinCode)] = pinCode;
+		}
+		// Lower case letters, and ` { | } ~, are sometimes used for @ A-Z [ \ ] ^.
+		for (int c = '`'; c <= '~'; c++) {
+			ASCII_PIN_CODES[c] = ASCII_PIN_CODES[c - 32];
+		}
+	}
+
+	private static final int CHUNK_CHARS = 1 << 16;
+	private static final int BATCH_CELLS = 1 << 16;
+
+	private BrailleImport() {}
+
+	public static String translate(Path path) throws IOException, InterruptedException {
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			return translate(reader);
+		}
+	}
+
+	public static String translate(Reader reader) throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			ArrayList<Future<Batch>> batches = new ArrayList<Future<Batch>>();
+			char[] chunk = new char[CHUNK_CHARS];
+			int[] chords = new int[BATCH_CELLS];
+			int count = 0;
+			int lineBreaks = 0;
+			int read;
+			while ((read = reader.read(chunk)) != -1) {
+				if (Thread.interrupted()) throw new InterruptedException();
+				for (int i = 0; i < read; i++) {
+					int chord = chord(chunk[i]);
+					if (chord == SKIP) continue;
+					if (chord == BrailleDecoder.ENTER) {
+						lineBreaks++;
+					} else if (chord != BrailleDecoder.SPACE) {
+						// Cut before the first cell of a paragraph.
+						if (lineBreaks >= 2 && count >= BATCH_CELLS) {
+							batches.add(executor.submit(new Batch(Arrays.copyOf(chords, count))));
+							count = 0;
+						}
+						lineBreaks = 0;
+					}
+					if (count == chords.length) chords = Arrays.copyOf(chords, count * 2);
+					chords[count++] = chord;
+				}
+			}
+			batches.add(executor.submit(new Batch(Arrays.copyOf(chords, count))));
+
+			StringBuilder text = new StringBuilder();
+			Batch previous = null;
+			for (Future<Batch> future: batches) {
+				Batch batch = future.get();
+				if (previous != null && !previous.decoder.isAtRest()) {
+					previous.carryOn(batch.chords);
+					batch = previous;
+				}
+				batch.output.appendTo(text);
+				batch.chords = null;
+				previous = batch;
+			}
+			return text.toString();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// The pin code for a cell, or SKIP.
+	private static int chord(char c) {
+		switch (c) {
+			case '\n':
+			case '\f':
+				return BrailleDecoder.ENTER;
+			case '\t':
+				return BrailleDecoder.TAB;
+		}
+		int pinCode;
+		if (c >= '\u2800' && c <= '\u28FF') {
+			pinCode = c - '\u2800';
+		} else if (c < ASCII_PIN_CODES.length) {
+			pinCode = ASCII_PIN_CODES[c];
+		} else {
+			return SKIP;
+		}
+		return (pinCode == 0) ? BrailleDecoder.SPACE : pinCode;
+	}
+
+
+	private static class Batch implements Callable<Batch> {
+		int[] chords;
+		final BatchOutput output = new BatchOutput();
+		final BrailleDecoder decoder = new BrailleDecoder(output);
+
+		Batch(int[] chords) {
+			this.chords = chords;
+		}
+
+		@Override
+		public Batch call() {
+			for (int chord: chords) {
+				decoder.chord(chord);
+			}
+			return this;
+		}
+
+		// Decodes the next batch with this decoder, once this batch's text is taken.
+		void carryOn(int[] next) {
+			output.clear();
+			chords = next;
+			call();
+		}
+	}
+
+	// Keeps the backspaces that reach back before the batch, for when the batches are joined.
+	private static class BatchOutput implements BrailleDecoder.Output {
+		private final StringBuilder text = new StringBuilder();
+		private int leadingBackspaces = 0;
+
+		@Override
+		public void edit(int backspaces, CharSequence inserted) {
+			int removed = Math.min(backspaces, text.length());
+			text.setLength(text.length() - removed);
+			leadingBackspaces += backspaces - removed;
+			text.append(inserted);
+		}
+
+		void appendTo(StringBuilder result) {
+			result.setLength(Math.max(0, result.length() - leadingBackspaces));
+			result.append(text);
+		}
+
+		void clear() {
+			text.setLength(0);
+			leadingBackspaces = 0;
+		}
+	}
+}
@@ -0,0 +1,396 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import static com.anas.jsimpletexteditor.braille.BrailleConstants.*;
+
+
+/*
+ * The compiled braille tables, as the decoder reads them, and their binary form.
+ *
+ * Building the tables from their definitions in BrailleTables takes well over 100ms, most
+ * of it normalizing every modifier and letter combination. So the build runs main from
+ * the process-classes phase, which builds the tables once, checks that they read back
+ * identically and writes them next to the classes. At startup the snapshot is read in
+ * one go and BrailleTables is never loaded. If the snapshot is missing or unreadable, or
+ * -Djsimpletexteditor.buildBrailleTables=true, the tables are built as before.
+ *
+ * The format is a header (magic, version, CRC32 of the rest), a pool of KeyData, the trie
+ * nodes in BrailleTrie order with their edges, then the alphabetic wordsign dictionaries.
+ * KeyData are written as indexes into the pool, or -1 for null.
+ */
+public final class BrailleSnapshot {
+	private static final Logger log = Logger.getLogger("BrailleSnapshot");
+
+	static final String RESOURCE = "braille-tables.bin";
+	private static final int MAGIC = 0x42524C54; // BRLT
+	private static final int VERSION = 1;
+	private static final int HEADER = 12;
+	private static final int NULL = -1;
+
+	final BrailleTrie trie;
+	final HashMap<String, MapData[]> alphabeticWordsigns;
+
+	private BrailleSnapshot(BrailleTrie trie, HashMap<String, MapData[]> alphabeticWordsigns) {
+		this.trie = trie;
+		this.alphabeticWordsigns = alphabeticWordsigns;
+	}
+
+	// Loaded on first use, so that running main never reads a stale snapshot.
+	private static class Holder {
+		static final BrailleSnapshot TABLES = loadOrBuild();
+	}
+
+	static BrailleSnapshot tables() {
+		return Holder.TABLES;
+	}
+
+	private static BrailleSnapshot loadOrBuild() {
+		if (!Boolean.getBoolean("jsimpletexteditor.buildBrailleTables")) {
+			try (InputStream in = BrailleSnapshot.class.getResourceAsStream(RESOURCE)) {
+				if (in != null) return read(in.readAllBytes());
+				log.warning("NO BRAILLE TABLE SNAPSHOT, BUILDING THE TABLES");
+			} catch (IOException | RuntimeException e) {
+				log.warning("UNUSABLE BRAILLE TABLE SNAPSHOT, BUILDING THE TABLES: " + e);
+			}
+		}
+		return build();
+	}
+
+	static BrailleSnapshot build() {
+		return new BrailleSnapshot(BrailleTables.BRAILLE_TRIE, BrailleTables.ALPHABETIC_WORDSIGNS);
+	}
+
+
+	// Writes the snapshot of freshly built tables to the path given.
+	public static void main(String[] args) throws IOException {
+		long start = System.nanoTime();
+		BrailleSnapshot built = build();
+		long builtNanos = System.nanoTime() - start;
+		byte[] bytes = built.toBytes();
+		start = System.nanoTime();
+		BrailleSnapshot read = read(bytes);
+		long readNanos = System.nanoTime() - start;
+		String difference = built.difference(read);
+		if (difference != null) {
+			throw new IllegalStateException("SNAPSHOT DOES NOT MATCH THE TABLES: " + difference);
+		}
+		Path path = Path.of(args[0]);
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		Files.write(path, bytes);
+		log.info("WROTE " + path + ": " + bytes.length + " BYTES, " + built.trie.size() + " NODES, BUILT IN "
+				 + (builtNanos / 1000000) + "ms, READ IN " + (readNanos / 1000000) + "ms");
+	}
+
+
+	byte[] toBytes() throws IOException {
+		// Number the KeyData first, as the same ones are shared by many nodes.
+		IdentityHashMap<KeyData, Integer> pool = new IdentityHashMap<KeyData, Integer>();
+		ArrayList<KeyData> poolOrder = new ArrayList<KeyData>();
+		for (int node = 1; node < trie.size(); node++) {
+			addToPool(trie.data(node), pool, poolOrder);
+		}
+		for (MapData[] dict: alphabeticWordsigns.values()) {
+			for (MapData md: dict) addToPool(md, pool, poolOrder);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(0); // CRC32, filled in below.
+
+		out.writeInt(poolOrder.size());
+		for (KeyData kd: poolOrder) {
+			out.writeChar(kd.getKeyChar());
+			out.writeInt(kd.getKeyCode());
+			out.writeInt(kd.getModifiers());
+		}
+
+		out.writeInt(trie.size());
+		for (int node = 1; node < trie.size(); node++) {
+			writeMapData(out, trie.data(node), pool);
+		}
+		for (int node = 0; node < trie.size(); node++) {
+			if (!trie.branches(node)) {
+				out.writeInt(NULL);
+				continue;
+			}
+			int edges = 0;
+			for (int pinCode = BrailleTrie.MIN_PIN_CODE; pinCode <= BrailleTrie.MAX_PIN_CODE; pinCode++) {
+				if (trie.child(node, pinCode) != BrailleTrie.NONE) edges++;
+			}
+			out.writeInt(edges);
+			for (int pinCode = BrailleTrie.MIN_PIN_CODE; pinCode <= BrailleTrie.MAX_PIN_CODE; pinCode++) {
+				int child = trie.child(node, pinCode);
+				if (child == BrailleTrie.NONE) continue;
+				out.writeInt(pinCode);
+				out.writeInt(child);
+			}
+		}
+
+		// Sorted, so the same tables always give the same bytes.
+		out.writeInt(alphabeticWordsigns.size());
+		for (Map.Entry<String, MapData[]> dict: new TreeMap<String, MapData[]>(alphabeticWordsigns).entrySet()) {
+			byte[] name = dict.getKey().getBytes(StandardCharsets.UTF_8);
+			out.writeInt(name.length);
+			out.write(name);
+			MapData[] signs = dict.getValue();
+			int entries = 0;
+			for (MapData md: signs) {
+				if (md != null) entries++;
+			}
+			out.writeInt(entries);
+			for (int pinCode = 0; pinCode < signs.length; pinCode++) {
+				if (signs[pinCode] == null) continue;
+				out.writeInt(pinCode);
+				writeMapData(out, signs[pinCode], pool);
+			}
+		}
+		out.flush();
+
+		byte[] result = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(result, HEADER, result.length - HEADER);
+		ByteBuffer.wrap(result).putInt(8, (int) crc.getValue());
+		return result;
+	}
+
+	private static void addToPool(MapData md, IdentityHashMap<KeyData, Integer> pool, ArrayList<KeyData> poolOrder) {
+		if (md == null || md.getKeyDataLists() == null) return;
+		for (List<KeyData> list: md.getKeyDataLists()) {
+			if (list == null) continue;
+			for (KeyData kd: list) {
+				if (kd != null && !pool.containsKey(kd)) {
+					pool.put(kd, poolOrder.size());
+					poolOrder.add(kd);
+				}
+			}
+		}
+	}
+
+	private static void writeMapData(DataOutputStream out, MapData md, IdentityHashMap<KeyData, Integer> pool) throws IOException {
+		if (md == null) {
+			out.writeInt(NULL);
+			return;
+		}
+		out.writeInt(md.getType());
+		if (md.getKeyDataLists() == null) {
+			out.writeInt(NULL);
+			return;
+		}
+		out.writeInt(md.getKeyDataLists().size());
+		for (List<KeyData> list: md.getKeyDataLists()) {
+			if (list == null) {
+				out.writeInt(NULL);
+				continue;
+			}
+			out.writeInt(list.size());
+			for (KeyData kd: list) {
+				out.writeInt((kd == null) ? NULL : pool.get(kd));
+			}
+		}
+	}
+
+
+	static BrailleSnapshot read(byte[] bytes) {
+		ByteBuffer in = ByteBuffer.wrap(bytes);
+		if (bytes.length < HEADER || in.getInt() != MAGIC) {
+			throw new IllegalStateException("NOT A BRAILLE TABLE SNAPSHOT");
+		}
+		int version = in.getInt();
+		if (version != VERSION) {
+			throw new IllegalStateException("BRAILLE TABLE SNAPSHOT VERSION " + version + ", EXPECTED " + VERSION);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes, HEADER, bytes.length - HEADER);
+		if (in.getInt() != (int) crc.getValue()) {
+			throw new IllegalStateException("CORRUPT BRAILLE TABLE SNAPSHOT");
+		}
+
+		KeyData[] pool = new KeyData[in.getInt()];
+		for (int i = 0; i < pool.length; i++) {
+			pool[i] = shared(new KeyData(in.getChar(), in.getInt(), in.getInt()));
+		}
+
+		int nodes = in.getInt();
+		MapData[] data = new MapData[nodes];
+		for (int node = 1; node < nodes; node++) {
+			data[node] = readMapData(in, pool);
+		}
+		boolean[] branches = new boolean[nodes];
+		int[] edges = new int[0];
+		int edgeCount = 0;
+		for (int node = 0; node < nodes; node++) {
+			int count = in.getInt();
+			if (count == NULL) continue;
+			branches[node] = true;
+			if ((edgeCount + count) * 3 > edges.length) {
+				edges = Arrays.copyOf(edges, Math.max(edges.length * 2, (edgeCount + count) * 3));
+			}
+			for (int i = 0; i < count; i++) {
+				edges[edgeCount * 3] = node;
+				edges[edgeCount * 3 + 1] = in.getInt();
+				edges[edgeCount * 3 + 2] = in.getInt();
+				edgeCount++;
+			}
+		}
+		BrailleTrie trie = new BrailleTrie(data, branches, Arrays.copyOf(edges, edgeCount * 3));
+
+		int dictCount = in.getInt();
+		HashMap<String, MapData[]> alphabeticWordsigns = new HashMap<String, MapData[]>();
+		for (int d = 0; d < dictCount; d++) {
+			byte[] name = new byte[in.getInt()];
+			in.get(name);
+			int entries = in.getInt();
+			MapData[] dict = new MapData[BrailleTrie.MAX_PIN_CODE + 1];
+			for (int i = 0; i < entries; i++) {
+				int pinCode = in.getInt();
+				dict[pinCode] = readMapData(in, pool);
+			}
+			alphabeticWordsigns.put(new String(name, StandardCharsets.UTF_8), dict);
+		}
+		if (in.hasRemaining()) {
+			throw new IllegalStateException("TRAILING BYTES IN BRAILLE TABLE SNAPSHOT");
+		}
+		return new BrailleSnapshot(trie, alphabeticWordsigns);
+	}
+
+	// The decoder compares some KeyData by identity, so use the shared constants where they match.
+	private static final KeyData[] SHARED = {
+		KD_BACKSPACE, KD_ENTER, KD_SPACE, KD_TAB, KD_Gsigma, KD_Gsigma_FINAL, KD_LIGATURE[LEFT_CHAR], KD_LIGATURE[RIGHT_CHAR]
+	};
+	private static KeyData shared(KeyData kd) {
+		for (KeyData constant: SHARED) {
+			if (constant.getKeyChar() == kd.getKeyChar() &&
+				constant.getKeyCode() == kd.getKeyCode() &&
+				constant.getModifiers() == kd.getModifiers()) return constant;
+		}
+		return kd;
+	}
+
+	private static MapData readMapData(ByteBuffer in, KeyData[] pool) {
+		int type = in.getInt();
+		if (type == NULL) return null;
+		// Built without a map, as the trie holds the children.
+		int lists = in.getInt();
+		if (lists == NULL) return MapData.withoutMap(type, null);
+		ArrayList<ArrayList<KeyData>> keyData = new ArrayList<ArrayList<KeyData>>(lists);
+		for (int l = 0; l < lists; l++) {
+			int size = in.getInt();
+			if (size == NULL) {
+				keyData.add(null);
+				continue;
+			}
+			ArrayList<KeyData> list = new ArrayList<KeyData>(size);
+			for (int i = 0; i < size; i++) {
+				int index = in.getInt();
+				list.add((index == NULL) ? null : pool[index]);
+			}
+			keyData.add(list);
+		}
+		return MapData.withoutMap(type, keyData);
+	}
+
+
+	// Returns where the two differ, or null if they hold the same tables.
+	String difference(BrailleSnapshot other) {
+		if (trie.size() != other.trie.size()) {
+			return "NODES: " + trie.size() + " AND " + other.trie.size();
+		}
+		// Walk both tries together, so the node numbering needn't agree.
+		int[] matched = new int[trie.size()];
+		Arrays.fill(matched, BrailleTrie.NONE);
+		ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+		queue.add(new int[] {BrailleTrie.ROOT, BrailleTrie.ROOT});
+		while (!queue.isEmpty()) {
+			int[] pair = queue.removeFirst();
+			int node = pair[0];
+			int otherNode = pair[1];
+			if (matched[node] != BrailleTrie.NONE) {
+				if (matched[node] != otherNode) return "NODE " + node + " IS SHARED IN ONE ONLY";
+				continue;
+			}
+			matched[node] = otherNode;
+			String difference = difference(trie.data(node), other.trie.data(otherNode));
+			if (difference == null && trie.branches(node) != other.trie.branches(otherNode)) {
+				difference = "BRANCHES";
+			}
+			for (int pinCode = BrailleTrie.MIN_PIN_CODE; difference == null && pinCode <= BrailleTrie.MAX_PIN_CODE; pinCode++) {
+				int child = trie.child(node, pinCode);
+				int otherChild = other.trie.child(otherNode, pinCode);
+				if ((child == BrailleTrie.NONE) != (otherChild == BrailleTrie.NONE)) {
+					difference = "CHILD " + pinCode;
+				} else if (child != BrailleTrie.NONE) {
+					queue.add(new int[] {child, otherChild});
+				}
+			}
+			if (difference != null) return "NODE " + node + ": " + difference;
+		}
+
+		if (!alphabeticWordsigns.keySet().equals(other.alphabeticWordsigns.keySet())) {
+			return "DICTIONARIES: " + alphabeticWordsigns.keySet() + " AND " + other.alphabeticWordsigns.keySet();
+		}
+		for (String name: alphabeticWordsigns.keySet()) {
+			MapData[] dict = alphabeticWordsigns.get(name);
+			MapData[] otherDict = other.alphabeticWordsigns.get(name);
+			if (dict.length != otherDict.length) return "DICTIONARY " + name + " PIN CODES";
+			for (int pinCode = 0; pinCode < dict.length; pinCode++) {
+				String difference = difference(dict[pinCode], otherDict[pinCode]);
+				if (difference != null) return "DICTIONARY " + name + " " + pinCode + ": " + difference;
+			}
+		}
+		return null;
+	}
+
+	private static String difference(MapData md, MapData other) {
+		if (md == null || other == null) {
+			return (md == other) ? null : "MAPDATA";
+		}
+		if (md.getType() != other.getType()) return "TYPE " + md.getType() + " AND " + other.getType();
+		List<List<KeyData>> keyData = md.getKeyDataLists();
+		List<List<KeyData>> otherKeyData = other.getKeyDataLists();
+		if (keyData == null || otherKeyData == null) {
+			return (keyData == otherKeyData) ? null : "KEYDATA";
+		}
+		if (keyData.size() != otherKeyData.size()) return "KEYDATA LISTS";
+		for (int l = 0; l < keyData.size(); l++) {
+			List<KeyData> list = keyData.get(l);
+			List<KeyData> otherList = otherKeyData.get(l);
+			if (list == null || otherList == null) {
+				if (list != otherList) return "KEYDATA LIST " + l;
+				continue;
+			}
+			if (list.size() != otherList.size()) return "KEYDATA LIST " + l + " LENGTH";
+			for (int i = 0; i < list.size(); i++) {
+				KeyData kd = list.get(i);
+				KeyData otherKd = otherList.get(i);
+				if (kd == null || otherKd == null) {
+					if (kd != otherKd) return "KEYDATA " + l + ", " + i;
+				} else if (kd.getKeyChar() != otherKd.getKeyChar() ||
+						   kd.getKeyCode() != otherKd.getKeyCode() ||
+						   kd.getModifiers() != otherKd.getModifiers()) {
+					return "KEYDATA " + l + ", " + i + ": " + kd.getKeyChar() + " AND " + otherKd.getKeyChar();
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,433 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static com.anas.jsimpletexteditor.braille.BrailleConstants.*;
+
+
+/*
+ * Translates print text into braille: the chords to type it, or Unicode braille cells.
+ *
+ * The reverse of the tables is found by decoding every path in the compiled trie, so only
+ * sequences that the decoder really turns back into print are indexed: the chords for each
+ * character, the letter groups that contract inside a word, and the wordsigns that stand
+ * for a whole word. The letter groups go into an Aho-Corasick automaton, so a word is
+ * contracted in one pass over it, picking the fewest cells over all the matches.
+ *
+ * Each word is checked by decoding it. If it doesn't come back, eg: a lone letter that
+ * would expand to its wordsign, plainer forms are tried, down to one character at a time
+ * behind a grade 1 indicator. Locks for a whole word, capitals or digits, are only used
+ * when whitespace follows, as nothing else ends them. Characters without braille are
+ * left out.
+ *
+ * Immutable once built, so one translator may be shared between threads.
+ */
+public final class BrailleTranslator {
+	private static final int MAX_PATH = 5;
+	private static final int LETTERS = 26;
+	private static final int MAX_CONTEXT = 64;
+	private static final int[] NO_CHORDS = {};
+
+	private static BrailleTranslator instance;
+
+	// The shortest chords for each character, and for each whole word wordsign.
+	private final HashMap<Character, int[]> characters = new HashMap<Character, int[]>();
+	private final HashMap<String, int[]> words = new HashMap<String, int[]>();
+
+	// The Aho-Corasick automaton over a to z for the contractions used inside words.
+	private final ArrayList<String> groups = new ArrayList<String>();
+	private final ArrayList<int[]> groupChords = new ArrayList<int[]>();
+	private int[] next;        // state * LETTERS + letter -> state
+	private int[] group;       // state -> the group ending there, or -1
+	private int[] moreGroups;  // state -> the next state along the failure links with a group, or -1
+
+	private BrailleTranslator() {
+		indexTrie(BrailleSnapshot.tables().trie);
+		buildAutomaton();
+	}
+
+	public static synchronized BrailleTranslator getInstance() {
+		if (instance == null) {
+			instance = new BrailleTranslator();
+		}
+		return instance;
+	}
+
+
+	// The chords as BrailleDecoder takes them, with SPACE, ENTER and TAB for whitespace.
+	public int[] toPinCodes(CharSequence text) {
+		Chords chords = new Chords();
+		translate(text, chords);
+		return chords.toArray();
+	}
+
+	// Unicode braille, keeping line breaks and tabs.
+	public String toUnicode(CharSequence text) {
+		return toUnicode(toPinCodes(text));
+	}
+
+	public static String toUnicode(int[] pinCodes) {
+		StringBuilder cells = new StringBuilder(pinCodes.length);
+		for (int pinCode: pinCodes) {
+			if (pinCode == ENTER) {
+				cells.append('\n');
+			} else if (pinCode == TAB_RAW) {
+				cells.append('\t');
+			} else if (pinCode == SPACE) {
+				cells.append('\u2800');
+			} else if (pinCode >= 0 && pinCode <= 0xFF) {
+				cells.append((char) ('\u2800' + pinCode));
+			}
+		}
+		return cells.toString();
+	}
+
+
+	private void translate(CharSequence text, Chords chords) {
+		// What has been written since the last whitespace, which is all that a word depends on.
+		int wordStart = 0;
+		StringBuilder printed = new StringBuilder();
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			char c = text.charAt(i);
+			if (isBlank(c)) {
+				if (c == '\n') {
+					chords.add(ENTER);
+				} else if (c == '\t') {
+					chords.add(TAB_RAW);
+				} else if (c != '\r') {
+					chords.add(SPACE);
+				}
+				wordStart = chords.size();
+				printed.setLength(0);
+				i++;
+				continue;
+			}
+			int end = i + 1;
+			if (Character.isLetterOrDigit(c)) {
+				while (end < length && Character.isLetterOrDigit(text.charAt(end))) end++;
+			} else if (!characters.containsKey(c)) {
+				i++;
+				continue;
+			}
+			String print = text.subSequence(i, end).toString();
+			boolean lastInWord = (end == length || isBlank(text.charAt(end)));
+			int[] after = NO_CHORDS;
+			String afterText = "";
+			if (!lastInWord && characters.containsKey(text.charAt(end))) {
+				after = characters.get(text.charAt(end));
+				afterText = String.valueOf(text.charAt(end));
+			}
+			// Without a limit, text with no whitespace would take quadratic time.
+			boolean context = chords.size() - wordStart <= MAX_CONTEXT;
+			chords.add(choose(candidates(print, lastInWord),
+				context ? chords.toArray(wordStart) : NO_CHORDS, context ? printed.toString() : "",
+				print, after, afterText));
+			printed.append(print);
+			i = end;
+		}
+	}
+
+	private static boolean isBlank(char c) {
+		return Character.isWhitespace(c) || Character.isSpaceChar(c);
+	}
+
+	// The ways to write a word, or a single character, from the shortest.
+	private ArrayList<int[]> candidates(String print, boolean lastInWord) {
+		ArrayList<int[]> candidates = new ArrayList<int[]>(6);
+		if (!Character.isLetterOrDigit(print.charAt(0))) {
+			// Some are wordsigns on their own, eg: ; for be.
+			int[] path = characters.get(print.charAt(0));
+			candidates.add(path);
+			candidates.add(join(new int[] {GRADE1}, path));
+			return candidates;
+		}
+		String lower = print.toLowerCase();
+		int[] prefix = casePrefix(print, lower, lastInWord);
+		if (prefix != null) {
+			int[] wordsign = words.get(lower);
+			if (wordsign != null) candidates.add(join(prefix, wordsign));
+			int[] letters = letters(lower);
+			int[] contracted = contract(lower);
+			if (contracted.length < letters.length) candidates.add(join(prefix, contracted));
+			candidates.add(join(prefix, letters));
+			candidates.add(join(new int[] {GRADE1}, join(prefix, letters)));
+		}
+		int[] characters = characterByCharacter(print, lastInWord);
+		candidates.add(characters);
+		candidates.add(join(new int[] {GRADE1}, characters));
+		return candidates;
+	}
+
+	// The first candidate that decodes back to the print, between what comes before and after it,
+	// or else the last.
+	private static int[] choose(ArrayList<int[]> candidates, int[] before, String beforeText, String print, int[] after, String afterText) {
+		String expected = beforeText + print + afterText;
+		for (int[] candidate: candidates) {
+			if (expected.equals(decodeWord(join(join(before, candidate), after)))) return candidate;
+		}
+		return candidates.get(candidates.size() - 1);
+	}
+
+	// The capitals indicators for the whole word, or null if it needs them letter by letter.
+	private static int[] casePrefix(String word, String lower, boolean lastInWord) {
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) return null;
+		}
+		if (word.equals(lower)) return NO_CHORDS;
+		String rest = word.substring(1);
+		if (Character.isUpperCase(word.charAt(0)) && rest.equals(lower.substring(1))) {
+			return new int[] {SHIFT};
+		}
+		if (word.equals(word.toUpperCase()) && lastInWord) {
+			return new int[] {SHIFT, SHIFT};
+		}
+		return null;
+	}
+
+	private int[] letters(String lower) {
+		Chords chords = new Chords();
+		for (int i = 0; i < lower.length(); i++) {
+			chords.add(characters.get(lower.charAt(i)));
+		}
+		return chords.toArray();
+	}
+
+	private int[] characterByCharacter(String word, boolean lastInWord) {
+		Chords chords = new Chords();
+		boolean number = lastInWord && word.length() > 1;
+		for (int i = 0; number && i < word.length(); i++) {
+			int[] path = characters.get(word.charAt(i));
+			number = path != null && path.length == 2 && path[0] == DIGIT;
+		}
+		if (number) {
+			// One digit lock for the lot.
+			chords.add(DIGIT);
+			chords.add(DIGIT);
+			for (int i = 0; i < word.length(); i++) {
+				chords.add(characters.get(word.charAt(i))[1]);
+			}
+			return chords.toArray();
+		}
+		for (int i = 0; i < word.length(); i++) {
+			int[] path = characters.get(word.charAt(i));
+			if (path != null) chords.add(path);
+		}
+		return chords.toArray();
+	}
+
+	// The fewest chords for a lower case word, over every way of covering it with letter groups.
+	private int[] contract(String lower) {
+		int length = lower.length();
+		int[] cost = new int[length + 1];
+		int[] choice = new int[length + 1];
+		int state = 0;
+		for (int end = 1; end <= length; end++) {
+			char c = lower.charAt(end - 1);
+			int[] letter = characters.get(c);
+			cost[end] = cost[end - 1] + ((letter == null) ? 0 : letter.length);
+			choice[end] = -1;
+			if (c < 'a' || c > 'z') {
+				state = 0;
+				continue;
+			}
+			state = next[state * LETTERS + (c - 'a')];
+			for (int s = (group[state] >= 0) ? state : moreGroups[state]; s >= 0; s = moreGroups[s]) {
+				int g = group[s];
+				int start = end - groups.get(g).length();
+				int groupCost = cost[start] + groupChords.get(g).length;
+				if (groupCost < cost[end]) {
+					cost[end] = groupCost;
+					choice[end] = g;
+				}
+			}
+		}
+		ArrayDeque<int[]> parts = new ArrayDeque<int[]>();
+		for (int end = length; end > 0;) {
+			if (choice[end] < 0) {
+				int[] letter = characters.get(lower.charAt(end - 1));
+				parts.addFirst((letter == null) ? NO_CHORDS : letter);
+				end--;
+			} else {
+				parts.addFirst(groupChords.get(choice[end]));
+				end -= groups.get(choice[end]).length();
+			}
+		}
+		Chords chords = new Chords();
+		for (int[] part: parts) chords.add(part);
+		return chords.toArray();
+	}
+
+	// Decodes every path in the trie, on its own and between letters, to see what it gives.
+	private void indexTrie(BrailleTrie trie) {
+		ArrayDeque<int[]> paths = new ArrayDeque<int[]>();
+		ArrayDeque<Integer> nodes = new ArrayDeque<Integer>();
+		paths.add(NO_CHORDS);
+		nodes.add(BrailleTrie.ROOT);
+		while (!paths.isEmpty()) {
+			int[] path = paths.removeFirst();
+			int node = nodes.removeFirst();
+			if (path.length > 0 && trie.data(node) != null && trie.data(node).getKeyDataLists() != null) {
+				index(path);
+				index(join(new int[] {SHIFT}, path));
+			}
+			if (path.length == MAX_PATH || !trie.branches(node)) continue;
+			// Whitespace and the other raw keys aren't for translating.
+			for (int pinCode = 1; pinCode <= BrailleTrie.MAX_PIN_CODE; pinCode++) {
+				int child = trie.child(node, pinCode);
+				if (child == BrailleTrie.NONE) continue;
+				paths.add(join(path, new int[] {pinCode}));
+				nodes.add(child);
+			}
+		}
+	}
+
+	private void index(int[] path) {
+		int[] a = characters.get('a');
+		String alone = decodeWord(path);
+		String within = (a == null) ? null : decodeWord(join(join(a, path), a));
+		if (within != null && within.length() > 2 && within.charAt(0) == 'a' && within.charAt(within.length() - 1) == 'a') {
+			within = within.substring(1, within.length() - 1);
+		} else {
+			within = null;
+		}
+
+		// Breadth first, so the first path found is the shortest.
+		String print = (alone != null && alone.length() == 1) ? alone : within;
+		if (print != null && print.length() == 1) {
+			characters.putIfAbsent(print.charAt(0), path);
+		}
+		if (within != null && within.length() > 1 && isLowerCaseWord(within) && path[0] != SHIFT && !groups.contains(within)) {
+			groups.add(within);
+			groupChords.add(path);
+		}
+		if (path.length == 1 && alone != null && alone.length() > 1 && isLowerCaseWord(alone)) {
+			words.putIfAbsent(alone, path);
+		}
+	}
+
+	// The text the chords decode to before a space, or null.
+	private static String decodeWord(int[] chords) {
+		BrailleDecoder.TextOutput output = new BrailleDecoder.TextOutput();
+		BrailleDecoder decoder = new BrailleDecoder(output);
+		try {
+			for (int chord: chords) {
+				decoder.chord(chord);
+			}
+			decoder.chord(SPACE);
+		} catch (RuntimeException e) {
+			// Some paths are only reachable in ways the decoder doesn't expect.
+			return null;
+		}
+		StringBuilder text = output.getText();
+		if (text.length() < 2 || text.charAt(text.length() - 1) != ' ') return null;
+		return text.substring(0, text.length() - 1);
+	}
+
+	private static boolean isLowerCaseWord(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) < 'a' || text.charAt(i) > 'z') return false;
+		}
+		return true;
+	}
+
+	private void buildAutomaton() {
+		ArrayList<int[]> gotos = new ArrayList<int[]>();
+		ArrayList<Integer> ends = new ArrayList<Integer>();
+		gotos.add(newState());
+		ends.add(-1);
+		for (int g = 0; g < groups.size(); g++) {
+			String text = groups.get(g);
+			int state = 0;
+			for (int i = 0; i < text.length(); i++) {
+				int letter = text.charAt(i) - 'a';
+				if (gotos.get(state)[letter] < 0) {
+					gotos.get(state)[letter] = gotos.size();
+					gotos.add(newState());
+					ends.add(-1);
+				}
+				state = gotos.get(state)[letter];
+			}
+			ends.set(state, g);
+		}
+
+		int states = gotos.size();
+		next = new int[states * LETTERS];
+		group = new int[states];
+		moreGroups = new int[states];
+		int[] fail = new int[states];
+		for (int s = 0; s < states; s++) group[s] = ends.get(s);
+		Arrays.fill(moreGroups, -1);
+		// Breadth first, so each state's failure is already complete.
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		for (int letter = 0; letter < LETTERS; letter++) {
+			int child = gotos.get(0)[letter];
+			if (child < 0) {
+				next[letter] = 0;
+			} else {
+				next[letter] = child;
+				fail[child] = 0;
+				queue.add(child);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.removeFirst();
+			int f = fail[state];
+			moreGroups[state] = (group[f] >= 0) ? f : moreGroups[f];
+			for (int letter = 0; letter < LETTERS; letter++) {
+				int child = gotos.get(state)[letter];
+				if (child < 0) {
+					next[state * LETTERS + letter] = next[f * LETTERS + letter];
+				} else {
+					next[state * LETTERS + letter] = child;
+					fail[child] = next[f * LETTERS + letter];
+					queue.add(child);
+				}
+			}
+		}
+	}
+
+	private static int[] newState() {
+		int[] state = new int[LETTERS];
+		Arrays.fill(state, -1);
+		return state;
+	}
+
+	private static int[] join(int[] first, int[] second) {
+		int[] joined = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, joined, first.length, second.length);
+		return joined;
+	}
+
+
+	private static class Chords {
+		private int[] chords = new int[64];
+		private int size = 0;
+
+		void add(int chord) {
+			if (size == chords.length) chords = Arrays.copyOf(chords, size * 2);
+			chords[size++] = chord;
+		}
+
+		void add(int[] more) {
+			for (int chord: more) add(chord);
+		}
+
+		int size() {
+			return size;
+		}
+
+		int[] toArray() {
+			return toArray(0);
+		}
+
+		int[] toArray(int from) {
+			return Arrays.copyOfRange(chords, from, size);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/*
+ * The BRAILLE_MAP tree, compiled into flat int tables.
+ *
+ * Every MapData with a map becomes a node with 256 child slots, one per 8-bit pin code,
+ * so walking a chord is an array index rather than a boxed HashMap lookup. The raw
+ * keyboard codes (stored under the negative of their keycode) only ever appear at the
+ * root, so they get their own small table instead of widening every node.
+ *
+ * Nothing is written after the constructor, and all fields are final, as are those of the
+ * MapData it holds, so a compiled trie can be shared between any number of threads.
+ */
+final class BrailleTrie {
+	public static final int ROOT = 0;
+	public static final int NONE = -1;
+
+	private static final int WIDTH = 256;
+	// Every pin code that may follow a node, ie: 0 to 255, and the raw codes at the root.
+	static final int MIN_PIN_CODE = -(WIDTH - 1);
+	static final int MAX_PIN_CODE = WIDTH - 1;
+
+	private final int[] next;     // node * WIDTH + pinCode -> child node, or NONE
+	private final int[] raw;      // -pinCode -> child node of ROOT, or NONE
+	private final boolean[] branches;
+	private final MapData[] data;
+
+	BrailleTrie(HashMap<Integer, MapData> brailleMap) {
+		// Number the nodes breadth first, so the root and single codes sit together.
+		IdentityHashMap<MapData, Integer> ids = new IdentityHashMap<MapData, Integer>();
+		ArrayList<MapData> order = new ArrayList<MapData>();
+		order.add(null);
+		ArrayDeque<HashMap<Integer, MapData>> queue = new ArrayDeque<HashMap<Integer, MapData>>();
+		queue.add(brailleMap);
+		while (!queue.isEmpty()) {
+			for (MapData md: queue.removeFirst().values()) {
+				if (ids.containsKey(md)) continue;
+				ids.put(md, order.size());
+				order.add(md);
+				if (md.map != null) queue.add(md.map);
+			}
+		}
+
+		int nodes = order.size();
+		this.next = new int[nodes * WIDTH];
+		this.raw = new int[WIDTH];
+		this.branches = new boolean[nodes];
+		this.data = new MapData[nodes];
+		Arrays.fill(next, NONE);
+		Arrays.fill(raw, NONE);
+
+		branches[ROOT] = true;
+		link(ROOT, brailleMap, ids);
+		for (int node = 1; node < nodes; node++) {
+			MapData md = order.get(node);
+			data[node] = md.withoutMap();
+			if (md.map != null) {
+				branches[node] = true;
+				link(node, md.map, ids);
+			}
+		}
+	}
+
+	// From nodes already numbered, as read from a BrailleSnapshot.
+	// The edges are triples of node, pin code and child node.
+	BrailleTrie(MapData[] data, boolean[] branches, int[] edges) {
+		int nodes = data.length;
+		this.next = new int[nodes * WIDTH];
+		this.raw = new int[WIDTH];
+		this.branches = branches;
+		this.data = data;
+		Arrays.fill(next, NONE);
+		Arrays.fill(raw, NONE);
+		for (int i = 0; i < edges.length; i += 3) {
+			link(edges[i], edges[i + 1], edges[i + 2]);
+		}
+	}
+
+	private void link(int node, HashMap<Integer, MapData> map, IdentityHashMap<MapData, Integer> ids) {
+		for (Map.Entry<Integer, MapData> entry: map.entrySet()) {
+			link(node, entry.getKey(), ids.get(entry.getValue()));
+		}
+	}
+
+	private void link(int node, int pinCode, int child) {
+		if (pinCode >= 0 && pinCode < WIDTH) {
+			next[node * WIDTH + pinCode] = child;
+		} else if (node == ROOT && pinCode < 0 && -pinCode < WIDTH) {
+			raw[-pinCode] = child;
+		} else {
+			throw new IllegalStateException("PIN CODE OUT OF RANGE: " + pinCode);
+		}
+	}
+
+	public int child(int node, int pinCode) {
+		if (node == NONE) return NONE;
+		if (pinCode >= 0) {
+			return (pinCode < WIDTH) ? next[node * WIDTH + pinCode] : NONE;
+		}
+		return (node == ROOT && -pinCode < WIDTH) ? raw[-pinCode] : NONE;
+	}
+
+	public MapData data(int node) {
+		return (node == NONE) ? null : data[node];
+	}
+
+	// Mirrors MapData.map being non-null, ie: whether a walk may continue past this node.
+	public boolean branches(int node) {
+		return node != NONE && branches[node];
+	}
+
+	public MapData get(int pinCode) {
+		return data(child(ROOT, pinCode));
+	}
+
+	public int size() {
+		return data.length;
+	}
+}
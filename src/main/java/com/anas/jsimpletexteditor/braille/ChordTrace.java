@@ -0,0 +1,130 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/*
+ * A fixed size ring of the most recent decoded chords, for diagnosing decoding problems
+ * without logging on every keystroke.
+ *
+ * The records are preallocated parallel arrays, so recording allocates nothing. Writers
+ * claim a slot with a single atomic increment and stamp it once written, so any number of
+ * decoders can record at once without locking, and a dump skips slots caught mid-write.
+ * Fences keep the plain writes of a record after its slot's stamp is cleared, and the plain
+ * reads of a dump before the stamp is checked again, as a seqlock needs.
+ * When disabled, which is the default, a decoder pays one volatile read per chord.
+ * Enable with -Djsimpletexteditor.trace=true or setEnabled.
+ */
+public final class ChordTrace {
+	public static final int CAPACITY = 1024; // A power of 2.
+	public static final int SEQUENCE_SLOTS = 4;
+	public static final int NO_TYPE = -1;
+
+	private static final String[] LOCK_NAMES = {"OFF", "CHAR", "WORD", "FULL"};
+	private static ChordTrace instance;
+
+	private volatile boolean enabled;
+	private final AtomicLong cursor = new AtomicLong();
+	// The ticket written to each slot, or -1 while being written.
+	private final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+	private final int[] pinCodes = new int[CAPACITY];
+	private final int[] sequences = new int[CAPACITY * SEQUENCE_SLOTS];
+	private final int[] sequenceLengths = new int[CAPACITY];
+	private final int[] locks = new int[CAPACITY];
+	private final int[] types = new int[CAPACITY];
+	private final long[] starts = new long[CAPACITY];
+	private final long[] ends = new long[CAPACITY];
+
+	private ChordTrace() {
+		enabled = Boolean.getBoolean("jsimpletexteditor.trace");
+		for (int i = 0; i < CAPACITY; i++) stamps.set(i, -1);
+	}
+
+	public static synchronized ChordTrace getInstance() {
+		if (instance == null) {
+			instance = new ChordTrace();
+		}
+		return instance;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	// Locks are the four 2 bit LOCK ordinals of grade1, shift, shift40 and digit, lowest first.
+	void record(int pinCode, List<Integer> sequence, int lockStates, int type, long startNanos, long endNanos) {
+		long ticket = cursor.getAndIncrement();
+		int slot = (int) (ticket & (CAPACITY - 1));
+		stamps.set(slot, -1);
+		VarHandle.releaseFence();
+		pinCodes[slot] = pinCode;
+		int length = sequence.size();
+		int base = slot * SEQUENCE_SLOTS;
+		for (int i = 0; i < SEQUENCE_SLOTS; i++) {
+			sequences[base + i] = (i < length) ? sequence.get(i) : 0;
+		}
+		sequenceLengths[slot] = length;
+		locks[slot] = lockStates;
+		types[slot] = type;
+		starts[slot] = startNanos;
+		ends[slot] = endNanos;
+		stamps.set(slot, ticket);
+	}
+
+	public void clear() {
+		for (int i = 0; i < CAPACITY; i++) stamps.set(i, -1);
+	}
+
+	// Writes the records held, oldest first, one per line.
+	public void dump(Appendable out) throws IOException {
+		long last = cursor.get();
+		for (long ticket = Math.max(0, last - CAPACITY); ticket < last; ticket++) {
+			int slot = (int) (ticket & (CAPACITY - 1));
+			if (stamps.get(slot) != ticket) continue;
+			int pinCode = pinCodes[slot];
+			int length = sequenceLengths[slot];
+			int lockStates = locks[slot];
+			int type = types[slot];
+			long start = starts[slot];
+			long end = ends[slot];
+			StringBuilder line = new StringBuilder();
+			line.append('#').append(ticket)
+				.append(" pin=").append(pinCode)
+				.append(" sequence=[");
+			for (int i = 0; i < Math.min(length, SEQUENCE_SLOTS); i++) {
+				if (i > 0) line.append(", ");
+				line.append(sequences[slot * SEQUENCE_SLOTS + i]);
+			}
+			if (length > SEQUENCE_SLOTS) line.append(", ...");
+			line.append("] grade1=").append(LOCK_NAMES[lockStates & 3])
+				.append(" shift=").append(LOCK_NAMES[(lockStates >> 2) & 3])
+				.append(" shift40=").append(LOCK_NAMES[(lockStates >> 4) & 3])
+				.append(" digit=").append(LOCK_NAMES[(lockStates >> 6) & 3])
+				.append(" type=").append((type == NO_TYPE) ? "none" : "0x" + Integer.toHexString(type))
+				.append(" at=").append(start)
+				.append(" took=").append(end - start).append("ns");
+			// Torn by a concurrent writer, so not to be trusted.
+			VarHandle.acquireFence();
+			if (stamps.get(slot) != ticket) continue;
+			out.append(line).append('\n');
+		}
+	}
+
+	public String dump() {
+		StringBuilder out = new StringBuilder();
+		try {
+			dump(out);
+		} catch (IOException e) {
+			// Not from a StringBuilder.
+		}
+		return out.toString();
+	}
+}
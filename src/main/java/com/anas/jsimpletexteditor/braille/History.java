@@ -0,0 +1,31 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Need the KeyData pointer as MapData alone doesn't tell us which case was used.
+class History {
+	ArrayList<Integer> pinCodeList;
+	MapData mapData;
+	List<KeyData> keyData;
+	boolean shift;
+	boolean grade1;
+
+	History(ArrayList<Integer> pcl, MapData md, List<KeyData> kd, boolean sh, boolean g1) {
+		this.pinCodeList = new ArrayList<Integer>(pcl);
+		this.mapData = md;
+		this.keyData = kd;
+		this.shift = sh;
+		this.grade1 = g1;
+	}
+
+	// Reuse rather than reallocate, as there is one of these per chord.
+	void set(ArrayList<Integer> pcl, MapData md, List<KeyData> kd, boolean sh, boolean g1) {
+		this.pinCodeList.clear();
+		this.pinCodeList.addAll(pcl);
+		this.mapData = md;
+		this.keyData = kd;
+		this.shift = sh;
+		this.grade1 = g1;
+	}
+}
@@ -0,0 +1,45 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.awt.event.KeyEvent;
+
+// Never changed once made, as the tables share it between threads.
+final class KeyData {
+	private final char keyChar;
+	private final int keyCode;
+	private final int modifiers;
+
+	KeyData(char ch) {
+		this(ch, (int)Character.toUpperCase(ch), 0);
+	}
+
+	KeyData(char ch, boolean sh) {
+		this(ch, (int)Character.toUpperCase(ch), KeyEvent.SHIFT_DOWN_MASK);
+	}
+
+	KeyData(char ch, int co) {
+		this(ch, co, 0);
+	}
+
+	KeyData(char ch, int co, boolean sh) {
+		this(ch, co, KeyEvent.SHIFT_DOWN_MASK);
+	}
+
+	// As read from a BrailleSnapshot.
+	KeyData(char ch, int co, int modifiers) {
+		this.keyChar = ch;
+		this.keyCode = co;
+		this.modifiers = modifiers;
+	}
+
+	public char getKeyChar() {
+		return keyChar;
+	}
+
+	public int getKeyCode() {
+		return keyCode;
+	}
+
+	public int getModifiers() {
+		return modifiers;
+	}
+}
@@ -0,0 +1,130 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+
+class MapData {
+	public static final int OVERFLOWS = 1;
+	public static final int MODIFIER = 2;
+	public static final int LIGATURE = 4;
+	public static final int WHITESPACE = 8;
+	public static final int CHARACTER = 16;
+	public static final int ALPHABET = 32;
+	public static final int STRING = 64;
+	public static final int STANDALONE = 128;
+	public static final int SUBSTITUTION = 256;
+	public static final int WORDSIGN = 512;
+	public static final int FINAL = 120;
+	public static final int CONCRETE = 126;
+
+	private static final Logger log = Logger.getLogger("MapData");
+
+	private final int type;
+	// Unmodifiable, as are the lists in it, so the tables can be shared.
+	private final List<List<KeyData>> keyData;
+	// The signs that may follow, while BrailleTables builds BRAILLE_MAP. Those in the trie
+	// have none, as it holds the children.
+	final HashMap<Integer, MapData> map;
+
+	MapData() {
+		this(OVERFLOWS, null, new HashMap<Integer, MapData>());
+	}
+
+	MapData(int tp, KeyData[] kdLower, KeyData[] kdUpper) {
+		this(tp,
+			 Arrays.asList(kdLower),
+			 (kdUpper == null) ? null : Arrays.asList(kdUpper));
+	}
+
+	MapData(int tp, List<KeyData> kdLower, List<KeyData> kdUpper) {
+		// Can't use List.of as arguments could be null.
+		this(tp, Arrays.asList(kdLower, kdUpper));
+	}
+
+	MapData(int tp, List<? extends List<KeyData>> kd) {
+		this(tp, freeze(kd), ((tp & OVERFLOWS) > 0) ? new HashMap<Integer, MapData>() : null);
+		if (type == OVERFLOWS) /*ONLY*/ {
+			log.severe("MAPDATA CONTAINING KEYDATA SHOULD HAVE A CONCRETE TYPE");
+		}
+	}
+
+	private MapData(int type, List<List<KeyData>> keyData, HashMap<Integer, MapData> map) {
+		this.type = type;
+		this.keyData = keyData;
+		this.map = map;
+	}
+
+	private static List<List<KeyData>> freeze(List<? extends List<KeyData>> kd) {
+		if (kd == null) return null;
+		ArrayList<List<KeyData>> lists = new ArrayList<List<KeyData>>(kd.size());
+		for (List<KeyData> list: kd) {
+			lists.add((list == null) ? null : Collections.unmodifiableList(new ArrayList<KeyData>(list)));
+		}
+		return Collections.unmodifiableList(lists);
+	}
+
+	// Copies for BrailleTables to put in place of this one, keeping the signs that follow.
+	MapData withType(int tp) {
+		return new MapData(tp, keyData, map);
+	}
+
+	MapData withKeyData(List<? extends List<KeyData>> kd) {
+		return new MapData(type, freeze(kd), map);
+	}
+
+	MapData withMap() {
+		return new MapData(type | OVERFLOWS, keyData, (map == null) ? new HashMap<Integer, MapData>() : map);
+	}
+
+	// As the trie holds it.
+	MapData withoutMap() {
+		return (map == null) ? this : new MapData(type, keyData, null);
+	}
+
+	// One for the trie, as read from a BrailleSnapshot.
+	static MapData withoutMap(int tp, List<? extends List<KeyData>> kd) {
+		return new MapData(tp, freeze(kd), null);
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	// The key data lists, LOWER, UPPER and so on, or null.
+	public List<List<KeyData>> getKeyDataLists() {
+		return keyData;
+	}
+
+	public List<KeyData> getKeyData() {
+		return getKeyData(false);
+	}
+
+	public List<KeyData> getKeyData(boolean shift) {
+		if ((isAlphabet() && !isCharacter()) || isString()) {
+			return keyData.get((shift) ? 1 : 0);
+		} else if (isCharacter() || isWhitespace()) {
+			return keyData.get(0);
+		} else {
+			return null;
+		}
+	}
+
+	public boolean overflows() {return (type & OVERFLOWS) > 0;}
+	public boolean isConcrete() {return (type & CONCRETE) > 0;}
+	public boolean isFinal() {return (type & FINAL) > 0;}
+	public boolean isModifier() {return (type & MODIFIER) > 0;}
+	public boolean isLigature() {return (type & LIGATURE) > 0 && (type & ~(LIGATURE | OVERFLOWS)) == 0;}
+	public boolean hasLigature() {return ((type & ALPHABET) > 0 && (type & LIGATURE) > 0);}
+	public boolean isAlphabet() {return (type & ALPHABET) > 0;}
+	public boolean isString() {return (type & STRING) > 0;}
+	public boolean isCharacter() {return (type & CHARACTER) > 0;}
+	public boolean isOverflow() {return (type & OVERFLOWS) > 0;}
+	public boolean isWhitespace() {return (type & WHITESPACE) > 0;}
+	public boolean isStandAloneMarker() {return (type & STANDALONE) > 0;}
+	public boolean isSubstitution() {return (type & SUBSTITUTION) > 0;}
+	public boolean isWordSign() {return (type & WORDSIGN) > 0;}
+}
@@ -0,0 +1,240 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+
+/*
+ * The wordsign dictionaries: those built in, from the snapshot, and those loaded from files.
+ *
+ * A dictionary file holds the same definitions as those built in, as properties, eg:
+ *     name=astronomy
+ *     upperFromLower=true
+ *     k=kelvin
+ *     st=star
+ * Each file is compiled when loaded, and its table kept while it's among the MAX_LOADED used
+ * most recently, so dozens of domain dictionaries don't all stay resident. There's one
+ * WordsignDictionary for each file, kept for good, and one whose table was dropped compiles
+ * it again when loaded or switched to, or in the background for the decoders still using it.
+ *
+ * The directories of the files compiled are watched, and a file that changes is compiled again
+ * and swapped into its dictionary, so every decoder using it picks it up on its next
+ * wordsign. Should the new version not compile, the old one stays.
+ */
+public final class WordsignDictionaries {
+	private static final Logger log = Logger.getLogger("WordsignDictionaries");
+
+	public static final String DEFAULT = "default";
+	static final int MAX_LOADED = 8;
+	// Compiles the tables dropped again, for the decoders still using them.
+	private static final ExecutorService COMPILER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "wordsign-dictionary-compiler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static WordsignDictionaries instance;
+
+	private final TreeMap<String, WordsignDictionary> builtIn = new TreeMap<String, WordsignDictionary>();
+	// Every one loaded, by path.
+	private final HashMap<Path, WordsignDictionary> files = new HashMap<Path, WordsignDictionary>();
+	// Those with their tables compiled, by path, least recently used first.
+	private final LinkedHashMap<Path, WordsignDictionary> loaded = new LinkedHashMap<Path, WordsignDictionary>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, WordsignDictionary> eldest) {
+			if (size() <= MAX_LOADED) return false;
+			eldest.getValue().drop();
+			unwatch(eldest.getKey());
+			return true;
+		}
+	};
+	private final HashMap<Path, WatchKey> watched = new HashMap<Path, WatchKey>();
+	private WatchService watchService;
+
+	private WordsignDictionaries() {
+		for (Map.Entry<String, MapData[]> dict: BrailleSnapshot.tables().alphabeticWordsigns.entrySet()) {
+			builtIn.put(dict.getKey(), new WordsignDictionary(dict.getKey(), null, dict.getValue()));
+		}
+	}
+
+	public static synchronized WordsignDictionaries getInstance() {
+		if (instance == null) {
+			instance = new WordsignDictionaries();
+		}
+		return instance;
+	}
+
+	public WordsignDictionary getDefault() {
+		return builtIn.get(DEFAULT);
+	}
+
+	// Those built in, then those loaded, by name.
+	public synchronized List<WordsignDictionary> getDictionaries() {
+		ArrayList<WordsignDictionary> dictionaries = new ArrayList<WordsignDictionary>(builtIn.values());
+		TreeMap<String, WordsignDictionary> byName = new TreeMap<String, WordsignDictionary>();
+		for (WordsignDictionary dictionary: files.values()) byName.put(dictionary.getName(), dictionary);
+		dictionaries.addAll(byName.values());
+		return dictionaries;
+	}
+
+	// A dictionary built in or loaded, or null.
+	public synchronized WordsignDictionary get(String name) {
+		if (builtIn.containsKey(name)) return builtIn.get(name);
+		for (WordsignDictionary dictionary: files.values()) {
+			if (dictionary.getName().equals(name)) return dictionary;
+		}
+		return null;
+	}
+
+	public synchronized WordsignDictionary load(Path path) throws IOException {
+		Path file = path.toAbsolutePath().normalize();
+		WordsignDictionary dictionary = files.get(file);
+		if (dictionary != null) {
+			if (loaded.get(file) == null) compile(dictionary, read(file));
+			return dictionary;
+		}
+		Map<String, String> definition = read(file);
+		String name = definition.getOrDefault("name", file.getFileName().toString());
+		dictionary = new WordsignDictionary(name, file, null);
+		files.put(file, dictionary);
+		compile(dictionary, definition);
+		return dictionary;
+	}
+
+	// The table of one whose table was dropped, compiled again, reading the file outside the
+	// lock. Should the file be gone or not compile, it's empty until the file changes.
+	MapData[] compile(WordsignDictionary dictionary) {
+		MapData[] signs;
+		try {
+			signs = WordsignDictionary.compile(read(dictionary.getPath()), BrailleSnapshot.tables().trie);
+		} catch (IOException | RuntimeException e) {
+			log.warning("CAN'T COMPILE WORDSIGN DICTIONARY " + dictionary.getName() + " AGAIN FROM " + dictionary.getPath() + ": " + e);
+			signs = WordsignDictionary.empty();
+		}
+		synchronized (this) {
+			// Unless it was compiled meanwhile, as by a reload.
+			if (loaded.get(dictionary.getPath()) != null) return dictionary.prepare();
+			return install(dictionary, signs);
+		}
+	}
+
+	void compileLater(WordsignDictionary dictionary, Runnable done) {
+		COMPILER.execute(() -> {
+			try {
+				compile(dictionary);
+			} finally {
+				done.run();
+			}
+		});
+	}
+
+	private MapData[] compile(WordsignDictionary dictionary, Map<String, String> definition) {
+		return install(dictionary, WordsignDictionary.compile(definition, BrailleSnapshot.tables().trie));
+	}
+
+	private MapData[] install(WordsignDictionary dictionary, MapData[] signs) {
+		dictionary.reload(signs);
+		loaded.put(dictionary.getPath(), dictionary);
+		watch(dictionary.getPath());
+		return signs;
+	}
+
+	private static Map<String, String> read(Path file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		HashMap<String, String> definition = new HashMap<String, String>();
+		for (String key: properties.stringPropertyNames()) {
+			definition.put(key, properties.getProperty(key));
+		}
+		return definition;
+	}
+
+
+	private void watch(Path file) {
+		Path directory = file.getParent();
+		if (directory == null || watched.containsKey(directory)) return;
+		try {
+			if (watchService == null) {
+				watchService = FileSystems.getDefault().newWatchService();
+				Thread watcher = new Thread(this::watchForChanges, "wordsign-dictionary-watcher");
+				watcher.setDaemon(true);
+				watcher.start();
+			}
+			watched.put(directory, directory.register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+		} catch (IOException e) {
+			log.warning("CAN'T WATCH " + directory + " FOR CHANGES: " + e);
+		}
+	}
+
+	// Stops watching the file's directory, unless another dictionary kept is in it.
+	private void unwatch(Path file) {
+		Path directory = file.getParent();
+		for (Path other: loaded.keySet()) {
+			if (!other.equals(file) && directory.equals(other.getParent())) return;
+		}
+		WatchKey key = watched.remove(directory);
+		if (key != null) key.cancel();
+	}
+
+	private void watchForChanges() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				Path directory = (Path) key.watchable();
+				for (WatchEvent<?> event: key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+					reload(directory.resolve((Path) event.context()));
+				}
+				key.reset();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Only when the application is closing.
+		}
+	}
+
+	private void reload(Path file) {
+		WordsignDictionary dictionary;
+		synchronized (this) {
+			// Without get, which would count as a use.
+			dictionary = null;
+			for (Map.Entry<Path, WordsignDictionary> entry: loaded.entrySet()) {
+				if (entry.getKey().equals(file)) dictionary = entry.getValue();
+			}
+		}
+		if (dictionary == null) return;
+		try {
+			MapData[] signs = WordsignDictionary.compile(read(file), BrailleSnapshot.tables().trie);
+			synchronized (this) {
+				// Unless its table was dropped meanwhile, to be compiled when next used.
+				if (!loaded.containsKey(file)) return;
+				dictionary.reload(signs);
+			}
+			log.info("RELOADED WORDSIGN DICTIONARY " + dictionary.getName() + " FROM " + file);
+		} catch (IOException | RuntimeException e) {
+			// Eg: caught while it was being written, in which case another event follows.
+			log.warning("CAN'T RELOAD WORDSIGN DICTIONARY FROM " + file + ": " + e);
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.anas.jsimpletexteditor.braille;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.anas.jsimpletexteditor.braille.BrailleConstants.*;
+
+
+/*
+ * A set of alphabetic wordsigns, compiled into a table indexed by pin code.
+ *
+ * The signs are given as in the definitions in BrailleTables: "name", "upperFromLower",
+ * then each letter or wordsign (eg: k, ch, ;) with the word it stands for. Is the upper
+ * case a reflection of the lower, or independent? If independent, upper case signs (eg: K,
+ * CH) have their own words.
+ *
+ * The letters and wordsigns are found in the compiled trie, so compiling a dictionary never
+ * builds the braille map. Once compiled a table is never written, only replaced whole when
+ * the file it came from changes, so a decoder may switch dictionaries, or carry on with one
+ * being reloaded, at the cost of a field read. One loaded from a file may have its table
+ * dropped when it's not among those used most recently. A decoder switching to it compiles
+ * it again, and one already using it carries on with the table it had while it's compiled
+ * again in the background, so a wordsign never waits on the file.
+ */
+public final class WordsignDictionary {
+	private static final int WIDTH = 256;
+
+	private final String name;
+	private final Path path;
+	// Null once dropped by WordsignDictionaries, until compiled again.
+	private volatile MapData[] signs;
+	private final AtomicBoolean compiling = new AtomicBoolean();
+
+	WordsignDictionary(String name, Path path, MapData[] signs) {
+		this.name = name;
+		this.path = path;
+		this.signs = signs;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	// The file it was loaded from, or null for those built in.
+	public Path getPath() {
+		return path;
+	}
+
+	static MapData get(MapData[] signs, int pinCode) {
+		return (pinCode >= 0 && pinCode < WIDTH) ? signs[pinCode] : null;
+	}
+
+	// The table, or null if it was dropped, when it's compiled again in the background.
+	MapData[] getSigns() {
+		MapData[] signs = this.signs;
+		if (signs == null && compiling.compareAndSet(false, true)) {
+			WordsignDictionaries.getInstance().compileLater(this, () -> compiling.set(false));
+		}
+		return signs;
+	}
+
+	// The table, compiled again now if it was dropped, as when a decoder switches to it.
+	MapData[] prepare() {
+		MapData[] signs = this.signs;
+		return (signs != null) ? signs : WordsignDictionaries.getInstance().compile(this);
+	}
+
+	void reload(MapData[] signs) {
+		this.signs = signs;
+	}
+
+	void drop() {
+		signs = null;
+	}
+
+	static MapData[] empty() {
+		return new MapData[WIDTH];
+	}
+
+
+	static MapData[] compile(Map<String, String> definition, BrailleTrie trie) {
+		boolean upperFromLower = Boolean.parseBoolean(definition.get("upperFromLower"));
+		// The letters, and the strong and lower wordsigns, as typed on their own.
+		HashMap<Character, KeyData> charToKeyData = new HashMap<Character, KeyData>();
+		HashMap<Integer, String> letters = new HashMap<Integer, String>();
+		HashMap<Integer, String> wordsigns = new HashMap<Integer, String>();
+		for (int pinCode = 1; pinCode < WIDTH; pinCode++) {
+			MapData md = trie.get(pinCode);
+			if (md == null || !md.isWordSign() || md.getKeyDataLists() == null) continue;
+			if (md.isAlphabet() && !md.isString()) {
+				KeyData lower = md.getKeyDataLists().get(LOWER).get(0);
+				KeyData upper = md.getKeyDataLists().get(UPPER).get(0);
+				charToKeyData.put(lower.getKeyChar(), lower);
+				charToKeyData.put(upper.getKeyChar(), upper);
+				letters.put(pinCode, String.valueOf(lower.getKeyChar()));
+			} else {
+				StringBuilder sign = new StringBuilder();
+				for (KeyData kd: md.getKeyDataLists().get(LOWER)) {
+					charToKeyData.putIfAbsent(kd.getKeyChar(), kd);
+					sign.append(kd.getKeyChar());
+				}
+				wordsigns.put(pinCode, sign.toString());
+			}
+		}
+		charToKeyData.put(KD_SPACE.getKeyChar(), KD_SPACE);
+
+		MapData[] signs = new MapData[WIDTH];
+		for (Map.Entry<Integer, String> letter: letters.entrySet()) {
+			signs[letter.getKey()] = compile(letter.getValue(), definition, upperFromLower, false, charToKeyData);
+		}
+		for (Map.Entry<Integer, String> wordsign: wordsigns.entrySet()) {
+			signs[wordsign.getKey()] = compile(wordsign.getValue(), definition, upperFromLower, true, charToKeyData);
+		}
+		return signs;
+	}
+
+	// The difficult situation is when lower and upper are equivalent, but the word doesn't
+	// start with the sign's letters. There we have to backspace and the case of the first
+	// letter may not match the case of the rest of the word. In other cases, the sign remains
+	// unaltered, so there is no complication. A wordsign's own letters are always typed again.
+	private static MapData compile(String sign, Map<String, String> definition, boolean upperFromLower,
+								   boolean retype, HashMap<Character, KeyData> charToKeyData) {
+		int type = (upperFromLower) ? MapData.STRING | MapData.ALPHABET : MapData.STRING | MapData.CHARACTER;
+		int length = sign.length();
+		ArrayList<KeyData> lower = null;
+		ArrayList<KeyData> upper = null;
+		// Used in the case when SUBSTITUTION is set.
+		ArrayList<KeyData> upperWithLower = null;
+		ArrayList<KeyData> lowerWithUpper = null;
+
+		String word = definition.get(sign);
+		if (word != null && word.length() >= length) {
+			lower = new ArrayList<KeyData>();
+			if (upperFromLower) upper = new ArrayList<KeyData>();
+			boolean substitution = retype || !word.startsWith(sign);
+			if (substitution) {
+				if (!upperFromLower) {
+					// The easy case.
+					backspaces(lower, length);
+					for (int c = 0; c < length; c++) lower.add(keyData(word.charAt(c), charToKeyData));
+				} else {
+					type = type | MapData.SUBSTITUTION;
+					upperWithLower = new ArrayList<KeyData>();
+					lowerWithUpper = new ArrayList<KeyData>();
+					backspaces(lower, length);
+					backspaces(upper, length);
+					backspaces(upperWithLower, length);
+					backspaces(lowerWithUpper, length);
+					for (int c = 0; c < length; c++) {
+						char cLower = word.charAt(c);
+						char cUpper = Character.toUpperCase(cLower);
+						lower.add(keyData(cLower, charToKeyData));
+						upper.add(keyData(cUpper, charToKeyData));
+						upperWithLower.add(keyData((c == 0) ? cUpper : cLower, charToKeyData));
+						lowerWithUpper.add(keyData(cLower, charToKeyData));
+					}
+				}
+			}
+			// Add the rest of the word.
+			for (int c = length; c < word.length(); c++) {
+				char cLower = word.charAt(c);
+				char cUpper = Character.toUpperCase(cLower);
+				lower.add(keyData(cLower, charToKeyData));
+				if (upperFromLower) {
+					upper.add(keyData(cUpper, charToKeyData));
+					if (substitution) {
+						upperWithLower.add(keyData(cLower, charToKeyData));
+						lowerWithUpper.add(keyData(cUpper, charToKeyData));
+					}
+				}
+			}
+		}
+
+		String signUpper = sign.toUpperCase();
+		String wordUpper = definition.get(signUpper);
+		if (!upperFromLower && wordUpper != null && wordUpper.length() >= length) {
+			upper = new ArrayList<KeyData>();
+			if (retype || !wordUpper.startsWith(signUpper)) {
+				backspaces(upper, length);
+				for (int c = 0; c < length; c++) upper.add(keyData(wordUpper.charAt(c), charToKeyData));
+			}
+			for (int c = length; c < wordUpper.length(); c++) {
+				upper.add(keyData(wordUpper.charAt(c), charToKeyData));
+			}
+		}
+
+		if (lower == null && upper == null) return null;
+		if (lowerWithUpper != null) {
+			return new MapData(type, Arrays.asList(lower, upper, upperWithLower, lowerWithUpper));
+		}
+		return new MapData(type, lower, upper);
+	}
+
+	private static void backspaces(ArrayList<KeyData> keyData, int count) {
+		for (int i = 0; i < count; i++) keyData.add(KD_BACKSPACE);
+	}
+
+	// Only the character is used when a wordsign is written out.
+	private static KeyData keyData(char c, HashMap<Character, KeyData> charToKeyData) {
+		return charToKeyData.computeIfAbsent(c, KeyData::new);
+	}
+}
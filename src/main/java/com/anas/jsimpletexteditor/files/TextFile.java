@@ -2,16 +2,33 @@ package com.anas.jsimpletexteditor.files;
 
 
 import java.io.*;
+import java.nio.charset.Charset;
 
 public class TextFile extends File {
     private FileType fileType;
     private String path;
+    // What it's read and written in.
+    private Charset charset = Charset.defaultCharset();
+    // Not saved anywhere yet, whatever's at the path, until a path's set.
+    private boolean untitled;
     public TextFile(String pathname) {
         super(pathname);
         this.setPath(super.getPath());
         fileType = FileType.getFileType(new File(pathname));
     }
 
+    // For text that isn't from a file, so nothing's read, and it's saved where the user chooses.
+    public static TextFile untitled(String name) {
+        TextFile textFile = new TextFile(name);
+        textFile.untitled = true;
+        return textFile;
+    }
+
+    @Override
+    public boolean exists() {
+        return !untitled && super.exists();
+    }
+
     public FileType getType() {
         return fileType;
     }
@@ -32,7 +49,7 @@ public class TextFile extends File {
     private String readFile() {
         StringBuilder stringBuilder = new StringBuilder();
         try {
-            BufferedReader bufferedReader = new BufferedReader(new FileReader(this));
+            BufferedReader bufferedReader = new BufferedReader(new FileReader(this, charset));
 
             String line = null;
             while ((line = bufferedReader.readLine()) != null) {
@@ -48,20 +65,17 @@ public class TextFile extends File {
         return  stringBuilder.toString();
     }
 
-    public boolean save(String path, String newContent) {
-        try {
-            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(path));
-            bufferedWriter.write(newContent);
-            bufferedWriter.close();
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return false;
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
     }
 
     public void setPath(String path) {
         this.path = path;
+        untitled = false;
     }
 
     @Override
@@ -1,8 +1,12 @@
 package com.anas.jsimpletexteditor.settings;
 
 import java.io.File;
+import java.io.Serial;
 
 public class EditorSettings extends Settings {
+    // As computed for the class before it was pinned, so the .ser files written then still read.
+    @Serial
+    private static final long serialVersionUID = -1195139941576708432L;
 
     public EditorSettings() {
         super();
@@ -14,6 +18,11 @@ public class EditorSettings extends Settings {
 
     @Override
     public String getSettingsFilePath() {
+        return super.getBasePath() + File.separator + "editor.settings";
+    }
+
+    @Override
+    public String getLegacyFilePath() {
         return super.getBasePath() + File.separator + "editor.ser";
     }
 }
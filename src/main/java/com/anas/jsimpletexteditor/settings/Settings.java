@@ -5,12 +5,17 @@ import java.io.File;
 import java.io.Serial;
 import java.io.Serializable;
 
+/**
+ * Settings are changed on a copy, and the copy applied. SettingsManager keeps them frozen,
+ * so what it gives out can be read on any thread and doesn't change under the reader.
+ */
 public abstract class Settings implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
     private Font font;
     private Color backgroundColor, textColor;
+    private transient boolean frozen;
 
     public Settings() {
         font = new Font(Font.SANS_SERIF, Font.BOLD, 20);
@@ -29,6 +34,7 @@ public abstract class Settings implements Serializable {
     }
 
     public void setFont(Font font) {
+        checkNotFrozen();
         this.font = font;
     }
 
@@ -37,6 +43,7 @@ public abstract class Settings implements Serializable {
     }
 
     public void setBackgroundColor(Color backgroundColor) {
+        checkNotFrozen();
         this.backgroundColor = backgroundColor;
     }
 
@@ -45,6 +52,7 @@ public abstract class Settings implements Serializable {
     }
 
     public void setTextColor(Color textColor) {
+        checkNotFrozen();
         this.textColor = textColor;
     }
 
@@ -66,8 +74,24 @@ public abstract class Settings implements Serializable {
         this.setFont(new Font(font.getFamily(), fontStyle, font.getSize()));
     }
 
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    // Once the settings are shared, after which the setters throw.
+    void freeze() {
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) throw new UnsupportedOperationException("Frozen settings; change a copy and apply that");
+    }
+
     public abstract String getSettingsFilePath();
 
+    // Where the settings were serialized before, to be read from once.
+    public abstract String getLegacyFilePath();
+
     public String getBasePath() {
         return System.getProperty("user.home") + File.separator + ".jsimpletexteditor";
     }
@@ -1,10 +1,21 @@
 package com.anas.jsimpletexteditor.settings;
 
+import java.util.Objects;
+
+// The settings now, and what changed since they were last applied.
 public class SettingsChangedEvent {
-    private final UISettings uiSettings;
-    private final EditorSettings editorSettings;
+    private final UISettings oldUiSettings, uiSettings;
+    private final EditorSettings oldEditorSettings, editorSettings;
 
+    // As if everything changed.
     public SettingsChangedEvent(UISettings uiSettings, EditorSettings editorSettings) {
+        this(null, null, uiSettings, editorSettings);
+    }
+
+    public SettingsChangedEvent(UISettings oldUiSettings, EditorSettings oldEditorSettings,
+                                UISettings uiSettings, EditorSettings editorSettings) {
+        this.oldUiSettings = oldUiSettings;
+        this.oldEditorSettings = oldEditorSettings;
         this.uiSettings = uiSettings;
         this.editorSettings = editorSettings;
     }
@@ -16,4 +27,43 @@ public class SettingsChangedEvent {
     public EditorSettings getEditorSettings() {
         return editorSettings;
     }
+
+    public boolean isChanged() {
+        return isUiSettingsChanged() || isEditorSettingsChanged();
+    }
+
+    public boolean isUiSettingsChanged() {
+        return isFontChanged(oldUiSettings, uiSettings) || isColorChanged(oldUiSettings, uiSettings);
+    }
+
+    public boolean isEditorSettingsChanged() {
+        return isFontChanged(oldEditorSettings, editorSettings) || isColorChanged(oldEditorSettings, editorSettings);
+    }
+
+    // Needs a relayout.
+    public boolean isUiFontChanged() {
+        return isFontChanged(oldUiSettings, uiSettings);
+    }
+
+    // Only a repaint.
+    public boolean isUiColorChanged() {
+        return isColorChanged(oldUiSettings, uiSettings);
+    }
+
+    public boolean isEditorFontChanged() {
+        return isFontChanged(oldEditorSettings, editorSettings);
+    }
+
+    public boolean isEditorColorChanged() {
+        return isColorChanged(oldEditorSettings, editorSettings);
+    }
+
+    public static boolean isFontChanged(Settings before, Settings after) {
+        return before == null || !Objects.equals(before.getFont(), after.getFont());
+    }
+
+    public static boolean isColorChanged(Settings before, Settings after) {
+        return before == null || !Objects.equals(before.getBackgroundColor(), after.getBackgroundColor())
+                || !Objects.equals(before.getTextColor(), after.getTextColor());
+    }
 }
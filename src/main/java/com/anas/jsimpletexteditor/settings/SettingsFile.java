@@ -0,0 +1,121 @@
+package com.anas.jsimpletexteditor.settings;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A category of settings as lines of key=value, after the format's version:
+ * <pre>
+ * version=1
+ * font.name=SansSerif
+ * font.style=1
+ * font.size=20
+ * background=#000000
+ * text=#ffffff
+ * </pre>
+ * Read in one go, with what's missing or not understood left as it was, so a file from a
+ * newer version reads as far as this one knows it. A category saved before as a serialized
+ * object is read from that once and written in this format instead.
+ */
+final class SettingsFile {
+    static final int VERSION = 1;
+
+    private SettingsFile() {}
+
+    // Into settings, which keeps its defaults for anything not in the file.
+    static void read(Settings settings) throws IOException {
+        String text;
+        try {
+            text = new String(Files.readAllBytes(Path.of(settings.getSettingsFilePath())), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            migrate(settings);
+            return;
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String line: text.split("\n")) {
+            int equals = line.indexOf('=');
+            if (line.startsWith("#") || equals < 0) continue;
+            values.put(line.substring(0, equals).trim(), line.substring(equals + 1).trim());
+        }
+        Font font = settings.getFont();
+        String name = values.getOrDefault("font.name", font.getName());
+        int style = parseInt(values.get("font.style"), font.getStyle());
+        int size = parseInt(values.get("font.size"), font.getSize());
+        settings.setFont(new Font(name, style, size));
+        settings.setBackgroundColor(parseColor(values.get("background"), settings.getBackgroundColor()));
+        settings.setTextColor(parseColor(values.get("text"), settings.getTextColor()));
+    }
+
+    static void write(Settings settings) throws IOException {
+        Path path = Path.of(settings.getSettingsFilePath());
+        Files.createDirectories(path.getParent());
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, format(settings), StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static String format(Settings settings) {
+        Font font = settings.getFont();
+        return "version=" + VERSION + "\n"
+                + "font.name=" + font.getName() + "\n"
+                + "font.style=" + font.getStyle() + "\n"
+                + "font.size=" + font.getSize() + "\n"
+                + "background=" + formatColor(settings.getBackgroundColor()) + "\n"
+                + "text=" + formatColor(settings.getTextColor()) + "\n";
+    }
+
+    // From the serialized file, if there is one, which is then no longer needed.
+    private static void migrate(Settings settings) throws IOException {
+        Path legacy = Path.of(settings.getLegacyFilePath());
+        if (!Files.exists(legacy)) return;
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(legacy))) {
+            Settings old = (Settings) in.readObject();
+            settings.setFont(old.getFont());
+            settings.setBackgroundColor(old.getBackgroundColor());
+            settings.setTextColor(old.getTextColor());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidClassException(legacy + ": " + e);
+        }
+        write(settings);
+        Files.delete(legacy);
+    }
+
+    private static int parseInt(String value, int otherwise) {
+        if (value == null) return otherwise;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return otherwise;
+        }
+    }
+
+    // #rrggbb, or #aarrggbb when not opaque.
+    private static String formatColor(Color color) {
+        if (color.getAlpha() == 255) return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+        return String.format("#%08x", color.getRGB());
+    }
+
+    private static Color parseColor(String value, Color otherwise) {
+        if (value == null || !value.startsWith("#") || (value.length() != 7 && value.length() != 9)) return otherwise;
+        try {
+            int argb = Integer.parseUnsignedInt(value.substring(1), 16);
+            return new Color(value.length() == 7 ? 0xFF000000 | argb : argb, true);
+        } catch (NumberFormatException e) {
+            return otherwise;
+        }
+    }
+}
@@ -1,117 +1,155 @@
 package com.anas.jsimpletexteditor.settings;
 
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import java.io.*;
-import java.util.ArrayList;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The settings, as a Snapshot of frozen settings replaced as a whole when settings are
+ * applied, so any thread can read them without locking and sees the categories as they
+ * were applied together.
+ */
 public class SettingsManager {
-    private static SettingsManager instance;
-    private Settings uiSettings, editorSettings;
-    private final ArrayList<SettingsListener> listeners;
+    private static volatile SettingsManager instance;
+    // Reading the settings, from loadInBackground.
+    private static CompletableFuture<SettingsManager> loading;
+    // How long applying waits for more, so a burst of changes is applied once.
+    private static final int APPLY_DELAY = 100;
+
+    public record Snapshot(UISettings uiSettings, EditorSettings editorSettings) {
+        private Snapshot with(Settings settings) {
+            if (settings instanceof UISettings) return new Snapshot(freeze(new UISettings(settings)), editorSettings);
+            if (settings instanceof EditorSettings) return new Snapshot(uiSettings, freeze(new EditorSettings(settings)));
+            return this;
+        }
+    }
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    // As the listeners and the files last had them, until the pending changes are applied. On the EDT.
+    private Snapshot applied;
+    private Timer applyTimer;
+    // Iterated without locking, and added to and removed from while notifying.
+    private final CopyOnWriteArrayList<SettingsListener> listeners = new CopyOnWriteArrayList<>();
 
     private SettingsManager() {
-        uiSettings = new UISettings();
-        editorSettings = new EditorSettings();
-        listeners = new ArrayList<>();
         loadAllSettings();
+        applied = current.get();
     }
 
     private void loadAllSettings() {
-        uiSettings = loadSettings(uiSettings);
-        editorSettings = loadSettings(editorSettings);
+        current.set(new Snapshot(freeze((UISettings) loadSettings(new UISettings())),
+                freeze((EditorSettings) loadSettings(new EditorSettings()))));
+    }
+
+    private static <T extends Settings> T freeze(T settings) {
+        settings.freeze();
+        return settings;
+    }
+
+    /**
+     * Starts reading the settings on another thread, so they're read while the frame is
+     * made, and getInstance only waits for what's left.
+     */
+    public static synchronized void loadInBackground() {
+        if (instance == null && loading == null) loading = CompletableFuture.supplyAsync(SettingsManager::new);
     }
 
     public static SettingsManager getInstance() {
-        if (instance == null) {
-            instance = new SettingsManager();
+        SettingsManager settingsManager = instance;
+        if (settingsManager != null) return settingsManager;
+        synchronized (SettingsManager.class) {
+            if (instance == null) {
+                instance = (loading != null) ? loading.join() : new SettingsManager();
+                loading = null;
+            }
+            return instance;
         }
-        return instance;
     }
 
+    // Into settings, which keeps the defaults if there's nothing saved.
     public Settings loadSettings(Settings settings) {
-        File settingsFile = new File(settings.getSettingsFilePath());
-        Settings loadedSettings = null;
-        if (!settingsFile.exists()) {
-            makeSettingsFile();
-        }
         try {
-            FileInputStream fileInputStream = new FileInputStream(settings.getSettingsFilePath());
-            ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream);
-            loadedSettings = (Settings) objectInputStream.readObject();
-            objectInputStream.close();
-            fileInputStream.close();
-        } catch (IOException | ClassNotFoundException e) {
+            SettingsFile.read(settings);
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        if (loadedSettings == null)
-            return settings;
-        return loadedSettings;
-    }
-
-    private void makeSettingsFile() {
-        File settingsFile = new File(uiSettings.getSettingsFilePath());
-        if (!settingsFile.getParentFile().exists()) {
-            settingsFile.getParentFile().mkdirs();
-        }
-        saveAll();
-    }
-
-    private void saveAll() {
-        save(uiSettings);
-        save(editorSettings);
+        return settings;
     }
 
     private void save(Settings settings) {
         try {
-            FileOutputStream fileOutputStream = new FileOutputStream(settings.getSettingsFilePath());
-            ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream);
-            objectOutputStream.writeObject(settings);
-            objectOutputStream.close();
-            fileOutputStream.close();
+            SettingsFile.write(settings);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    // From any thread; the listeners hear of it on the EDT.
     public void applySettings() {
-        this.saveAll();
-        this.notifySettingsListeners();
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::applySettings);
+            return;
+        }
+        if (applyTimer == null) {
+            applyTimer = new Timer(APPLY_DELAY, e -> applyPendingSettings());
+            applyTimer.setRepeats(false);
+        }
+        applyTimer.restart();
     }
 
-    public void addSettingsListener(SettingsListener settingsListener) {
-        if (!listeners.contains(settingsListener)) {
-            listeners.add(settingsListener);
+    /**
+     * Saves the categories that changed since last time, and tells the listeners what did,
+     * once for however many times applySettings was called in the meantime. On the EDT.
+     */
+    public void applyPendingSettings() {
+        if (applyTimer != null) applyTimer.stop();
+        Snapshot snapshot = current.get();
+        SettingsChangedEvent event = new SettingsChangedEvent(applied.uiSettings(), applied.editorSettings(),
+                snapshot.uiSettings(), snapshot.editorSettings());
+        if (!event.isChanged()) return;
+        if (event.isUiSettingsChanged()) save(snapshot.uiSettings());
+        if (event.isEditorSettingsChanged()) save(snapshot.editorSettings());
+        applied = snapshot;
+        for (SettingsListener listener : listeners) {
+            listener.onSettingsChanged(event);
         }
     }
 
-    public void removeSettingsListener(SettingsListener settingsListener) {
-        listeners.remove(settingsListener);
+    public void addSettingsListener(SettingsListener settingsListener) {
+        listeners.addIfAbsent(settingsListener);
     }
 
-    private void notifySettingsListeners() {
-        for (SettingsListener listener : listeners) {
-            listener.onSettingsChanged(new SettingsChangedEvent((UISettings) uiSettings, (EditorSettings) editorSettings));
-        }
+    public void removeSettingsListener(SettingsListener settingsListener) {
+        listeners.remove(settingsListener);
     }
 
+    // Frozen copies of the settings replace the current ones, all at once.
     public void applySettings(Settings ... settings) {
         if (settings == null || settings.length == 0)
             return;
 
-        for (Settings setting : settings) {
-            if (setting instanceof UISettings) {
-                this.uiSettings = (UISettings) setting;
-            } else if (setting instanceof EditorSettings) {
-                this.editorSettings = (EditorSettings) setting;
+        current.updateAndGet(snapshot -> {
+            for (Settings setting : settings) {
+                snapshot = snapshot.with(setting);
             }
-        }
+            return snapshot;
+        });
         this.applySettings();
     }
 
+    // Both categories as they were last applied together.
+    public Snapshot getSnapshot() {
+        return current.get();
+    }
+
     public Settings getUiSettings() {
-        return uiSettings;
+        return current.get().uiSettings();
     }
 
     public Settings getEditorSettings() {
-        return editorSettings;
+        return current.get().editorSettings();
     }
 }
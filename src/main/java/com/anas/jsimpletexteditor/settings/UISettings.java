@@ -1,8 +1,12 @@
 package com.anas.jsimpletexteditor.settings;
 
 import java.io.File;
+import java.io.Serial;
 
 public class UISettings extends Settings {
+    // As computed for the class before it was pinned, so the .ser files written then still read.
+    @Serial
+    private static final long serialVersionUID = -7144501758934569502L;
 
     public UISettings() {
         super();
@@ -14,6 +18,11 @@ public class UISettings extends Settings {
 
     @Override
     public String getSettingsFilePath() {
+        return super.getBasePath() + File.separator + "ui.settings";
+    }
+
+    @Override
+    public String getLegacyFilePath() {
         return super.getBasePath() + File.separator + "ui.ser";
     }
 }
@@ -0,0 +1,56 @@
+package com.anas.jsimpletexteditor.tab;
+
+import com.anas.jsimpletexteditor.PieceTable;
+import com.anas.jsimpletexteditor.PieceTableDocument;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The text of a hibernating tab, deflated in a temporary file: its length, then its chars
+ * as UTF-16, so any text comes back as it was, unpaired surrogates too.
+ */
+final class HibernationFile {
+    private static final int BUFFER = 64 * 1024;
+
+    private HibernationFile() {}
+
+    static Path write(PieceTable.Snapshot text) throws IOException {
+        Path path = Files.createTempFile("jsimpletexteditor-tab", ".z");
+        path.toFile().deleteOnExit();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(
+                new DeflaterOutputStream(Files.newOutputStream(path), deflater, BUFFER))) {
+            out.writeInt(text.length());
+            text.writeChars(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        return path;
+    }
+
+    // As one piece, as if just loaded.
+    static PieceTableDocument read(Path path) throws IOException {
+        // Ended here, as the stream only ends an Inflater it made itself.
+        Inflater inflater = new Inflater();
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(path), inflater, BUFFER)) {
+            int length = new DataInputStream(in).readInt();
+            char[] text = PieceTable.Snapshot.readChars(in, length, 1);
+            text[length] = '\n';
+            return new PieceTableDocument(new PieceTable(text, length + 1));
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,18 +1,59 @@
 package com.anas.jsimpletexteditor.tab;
 
+import com.anas.jsimpletexteditor.ChordAssembler;
+import com.anas.jsimpletexteditor.EditHistory;
+import com.anas.jsimpletexteditor.EditJournal;
+import com.anas.jsimpletexteditor.FileSaver;
+import com.anas.jsimpletexteditor.FindBar;
+import com.anas.jsimpletexteditor.KeyboardLayout;
+import com.anas.jsimpletexteditor.PieceTable;
+import com.anas.jsimpletexteditor.PieceTableDocument;
 import com.anas.jsimpletexteditor.TabbedPane;
+import com.anas.jsimpletexteditor.TextAreaBraille;
 import com.anas.jsimpletexteditor.TextEditorPane;
+import com.anas.jsimpletexteditor.braille.BrailleDecoder;
+import com.anas.jsimpletexteditor.braille.WordsignDictionary;
 import com.anas.jsimpletexteditor.files.TextFile;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import java.awt.*;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * A file being edited. While it's not shown it can hibernate: its text is deflated into a
+ * temporary file and the editor let go of, until it's shown again, or getTextEditorPane
+ * is called, when the editor's made again from the text, as it was left.
+ */
 public class Tab extends JPanel {
-    private final TextEditorPane textEditorPane;
+    private final TabbedPane tabbedPane;
+    // Null while hibernating.
+    private TextEditorPane textEditorPane;
     private final TabHead tabHead;
     private TextFile textFile;
+    // Writing the text away to hibernate, until it's done or the tab's woken.
+    private SwingWorker<Path, Void> hibernating;
+    // While hibernating, where the text is, and how the editor was left.
+    private Path hibernationFile;
+    private View view;
+    // Saves under way, which need the editor to tell if the text changed meanwhile.
+    private int saving;
+    // The edits since it was last saved.
+    private final EditJournal journal = new EditJournal();
+
+    // Why the text couldn't be read back, while it's kept hibernating till it can.
+    private IOException wakeError;
+
+    private record View(int dot, int mark, Point viewPosition, boolean braillePreviewVisible,
+                        WordsignDictionary wordsigns, KeyboardLayout keyboardLayout,
+                        TextAreaBraille.OutputMode outputMode, PieceTable.Fingerprint saved,
+                        EditHistory.Steps<BrailleDecoder.State> history, BrailleDecoder.State decoderState,
+                        boolean chordPreview, long pressWindow, long overlapWindow, FindBar.State find) {}
 
     public Tab(TabbedPane tabbedPane) {
         this(tabbedPane, null);
@@ -20,10 +61,32 @@ public class Tab extends JPanel {
 
     public Tab(TabbedPane tabbedPane, TextFile textFile) {
         super.setLayout(new MigLayout());
+        this.tabbedPane = tabbedPane;
         this.textFile = Objects.requireNonNullElseGet(textFile, () -> new TextFile("Untitled"));
         textEditorPane = new TextEditorPane(this.textFile);
-        super.add(textEditorPane, "grow, push");
+        addComponents();
         tabHead = new TabHead(tabbedPane, this);
+        // Once it's read, unless there's no file to read.
+        if (textEditorPane.getLoader() == null) {
+            journal.restart(this.textFile, textEditorPane.getSavedFingerprint(), textEditorPane.getTextArea().getDocument());
+        }
+    }
+
+    private void addComponents() {
+        textEditorPane.addPropertyChangeListener("modified", e -> tabHead.setChanged((Boolean) e.getNewValue()));
+        textEditorPane.addPropertyChangeListener("saved", e -> journal.restart(textFile,
+                (PieceTable.Fingerprint) e.getNewValue(), textEditorPane.getTextArea().getDocument()));
+        textEditorPane.getTextArea().addPropertyChangeListener("document", e -> {
+            // The file read again is journaled once it's in, and other text from the start.
+            if (textEditorPane.getLoader() != null) {
+                journal.follow(null);
+            } else if (e.getNewValue() instanceof PieceTableDocument document) {
+                journal.restart(textFile, document);
+            }
+        });
+        super.add(textEditorPane, "grow, push");
+        super.add(textEditorPane.getFindBar(), "newline, growx, hidemode 3");
+        super.add(textEditorPane.getBraillePreview(), "newline, grow, push, hidemode 3");
     }
 
     @Override
@@ -33,7 +96,7 @@ public class Tab extends JPanel {
 
     public void setFile(TextFile textFile) {
         this.textFile = textFile;
-        textEditorPane.setTextFile(Tab.this.textFile);
+        if (textEditorPane != null) textEditorPane.setTextFile(Tab.this.textFile);
     }
 
     public boolean close() {
@@ -48,32 +111,245 @@ public class Tab extends JPanel {
         return tabHead;
     }
 
+    // Woken first, if hibernating, or null if it couldn't be, when the tab says why.
     public TextEditorPane getTextEditorPane() {
+        wake();
         return textEditorPane;
     }
 
+    public boolean isHibernating() {
+        return textEditorPane == null;
+    }
+
+    // Roughly how many bytes the text takes in memory, none while hibernating.
+    public long getMemoryUse() {
+        return (textEditorPane == null) ? 0 : textEditorPane.getMemoryUse();
+    }
+
+    /**
+     * Starts writing the text away in the background. If the tab's still not shown and the
+     * text unchanged once it's written, the editor's let go of.
+     * @return whether the tab is hibernating or on its way, which it isn't while its file's
+     * being read or saved, or a replace all is under way
+     */
+    public boolean hibernate() {
+        if (textEditorPane == null || hibernating != null) return true;
+        if (!canHibernate()) return false;
+        PieceTableDocument document = (PieceTableDocument) textEditorPane.getTextArea().getDocument();
+        PieceTable.Snapshot snapshot = document.snapshot();
+        SwingWorker<Path, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Path doInBackground() throws IOException {
+                return HibernationFile.write(snapshot);
+            }
+
+            @Override
+            protected void done() {
+                hibernated(this, document, snapshot);
+            }
+        };
+        hibernating = worker;
+        worker.execute();
+        return true;
+    }
+
+    private boolean canHibernate() {
+        TextAreaBraille textArea = textEditorPane.getTextArea();
+        return saving == 0 && textEditorPane.getLoader() == null && textArea.isEditable()
+                && !textEditorPane.getFindBar().isReplacing() && textArea.getDocument() instanceof PieceTableDocument;
+    }
+
+    private void hibernated(SwingWorker<Path, Void> worker, PieceTableDocument document, PieceTable.Snapshot snapshot) {
+        Path path;
+        try {
+            path = worker.get();
+        } catch (InterruptedException | ExecutionException e) {
+            // Stays awake.
+            if (worker == hibernating) hibernating = null;
+            return;
+        }
+        if (worker != hibernating || tabbedPane.getSelectedComponent() == this || !canHibernate()
+                || textEditorPane.getTextArea().getDocument() != document || !document.isUnchangedSince(snapshot)) {
+            if (worker == hibernating) hibernating = null;
+            delete(path);
+            return;
+        }
+        hibernating = null;
+        TextAreaBraille textArea = textEditorPane.getTextArea();
+        ChordAssembler assembler = textArea.getChordAssembler();
+        view = new View(textArea.getCaret().getDot(), textArea.getCaret().getMark(),
+                textEditorPane.getViewport().getViewPosition(), textEditorPane.isBraillePreviewVisible(),
+                textArea.getWordsigns(), textArea.getKeyboardLayout(), textArea.getOutputMode(),
+                textEditorPane.getSavedFingerprint(), textArea.takeEditHistory(), textArea.getDecoderState(),
+                textArea.isChordPreview(), assembler.getPressWindow(), assembler.getOverlapWindow(),
+                textEditorPane.getFindBar().getState());
+        textEditorPane.getFindBar().close();
+        textEditorPane.setBraillePreviewVisible(false);
+        // Woken, it records a new session.
+        textArea.closeRecorder();
+        journal.follow(null);
+        super.removeAll();
+        textEditorPane = null;
+        hibernationFile = path;
+    }
+
+    /**
+     * Makes the editor again from the text written away, as it was left. If the text can't
+     * be read, it stays hibernating, with its file and changes kept, and says so in place of
+     * the editor, until it's tried again.
+     */
+    private void wake() {
+        // One on its way is let go of when it's done.
+        hibernating = null;
+        if (textEditorPane != null || wakeError != null) return;
+        PieceTableDocument document;
+        try {
+            document = HibernationFile.read(hibernationFile);
+        } catch (IOException e) {
+            wakeError = e;
+            showWakeError();
+            return;
+        }
+        textEditorPane = new TextEditorPane(textFile, document);
+        delete(hibernationFile);
+        hibernationFile = null;
+        super.removeAll();
+        textEditorPane.setSaved(view.saved());
+        journal.follow(textEditorPane.getTextArea().getDocument());
+        addComponents();
+        tabHead.setChanged(textEditorPane.isModified());
+        TextAreaBraille textArea = textEditorPane.getTextArea();
+        textArea.setWordsigns(view.wordsigns());
+        textArea.setKeyboardLayout(view.keyboardLayout());
+        textArea.setOutputMode(view.outputMode());
+        textArea.putEditHistory(view.history());
+        textArea.setDecoderState(view.decoderState());
+        textArea.setChordPreview(view.chordPreview());
+        textArea.getChordAssembler().setPressWindow(view.pressWindow());
+        textArea.getChordAssembler().setOverlapWindow(view.overlapWindow());
+        textEditorPane.setBraillePreviewVisible(view.braillePreviewVisible());
+        int length = textArea.getDocument().getLength();
+        textArea.setCaretPosition(Math.min(view.mark(), length));
+        textArea.moveCaretPosition(Math.min(view.dot(), length));
+        textEditorPane.getFindBar().setState(view.find());
+        // Once it's laid out, after the caret's scrolled itself into view.
+        JViewport viewport = textEditorPane.getViewport();
+        Point viewPosition = view.viewPosition();
+        SwingUtilities.invokeLater(() -> viewport.setViewPosition(viewPosition));
+        view = null;
+        super.revalidate();
+    }
+
+    private void showWakeError() {
+        super.removeAll();
+        JButton retry = new JButton("Try Again");
+        retry.addActionListener(e -> {
+            wakeError = null;
+            wake();
+            if (textEditorPane != null) tabbedPane.tabChanged(this);
+        });
+        super.add(new JLabel("Couldn't restore " + textFile.getName() + ": " + wakeError.getMessage()
+                + ". Its text and changes are kept."), "wrap");
+        super.add(retry);
+        super.revalidate();
+        super.repaint();
+    }
+
+    // Closed, so what it's reading or written away is let go of.
+    public void closed() {
+        hibernating = null;
+        journal.discard();
+        if (textEditorPane != null) {
+            textEditorPane.cancelLoading();
+            textEditorPane.getTextArea().closeRecorder();
+        }
+        if (hibernationFile != null) delete(hibernationFile);
+        hibernationFile = null;
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Deleted on exit.
+        }
+    }
+
+    // In the background, the * going once the file's written, unless it's been edited since.
     public void save(String path) {
+        save(path, false);
+    }
+
+    /**
+     * @param close whether to close the tab once it's saved, if it's not been edited since
+     * @return whether the save was started
+     */
+    private boolean save(String path, boolean close) {
+        if (getTextEditorPane() == null) {
+            JOptionPane.showMessageDialog(this, "Couldn't restore " + textFile.getName() + " to save it: "
+                    + wakeError.getMessage(), "Save", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        FileSaver saver = textEditorPane.save(path);
+        if (saver == null) {
+            JOptionPane.showMessageDialog(this, "Wait for " + textFile.getName() + " to open before saving it.",
+                    "Save", JOptionPane.WARNING_MESSAGE);
+            return false;
+        }
+        saving++;
+        journal.saving(saver);
+        saver.addPropertyChangeListener(e -> {
+            if ("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE) {
+                saving--;
+                if (saved(saver, path) && close && textEditorPane.isUnchangedSince(saver.getText())) {
+                    tabbedPane.close(this);
+                }
+            }
+        });
+        return true;
+    }
+
+    // Whether it was saved; if not, it's said why, and the tab and its edits are kept.
+    private boolean saved(FileSaver saver, String path) {
+        try {
+            saver.get();
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            JOptionPane.showMessageDialog(this, "Couldn't save " + new File(path).getName() + ": " + cause.getMessage(),
+                    "Save", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
         tabHead.setFileName(new File(path).getName());
-        textEditorPane.save(path);
+        textEditorPane.markSaved(saver.getText());
+        // Edited while being saved, so the journal can't start from what's saved.
+        if (!textEditorPane.isUnchangedSince(saver.getText())) {
+            journal.restart(textFile, (PieceTableDocument) textEditorPane.getTextArea().getDocument());
+        }
+        return true;
     }
 
+    // Kept by the tab head, so it's known while hibernating.
     public boolean hasChange() {
-        if (!textFile.exists())
-            return true;
         return tabHead.hasChange();
     }
 
+    // Whether it can be closed now. Saved first, it closes itself once the file's written, or stays if it can't be.
     public boolean exit() {
         if (hasChange()) {
             int result = JOptionPane.showConfirmDialog(this, "Do you want to save changes?", "Save", JOptionPane.YES_NO_CANCEL_OPTION);
             if (result == JOptionPane.YES_OPTION) {
-                return save();
+                save(true);
+                return false;
             }
         }
         return true;
     }
 
     public boolean save() {
+        return save(false);
+    }
+
+    private boolean save(boolean close) {
         if (!textFile.exists()) {
             JFileChooser fileChooser = new JFileChooser();
             fileChooser.setDialogTitle("Save location");
@@ -84,7 +360,6 @@ public class Tab extends JPanel {
                 return false;
             }
         }
-        save(textFile.getPath());
-        return true;
+        return save(textFile.getPath(), close);
     }
 }
@@ -9,12 +9,14 @@ import java.awt.*;
 public class TabHead extends JPanel {
     private final JLabel label;
     private final CloseTabButton closeButton;
+    private String fileName;
     private boolean fileChanged;
 
     public TabHead(final TabbedPane tabbedPane, final Tab tab) {
         super();
         fileChanged = false;
-        this.label = new JLabel(tab.getTitle());
+        fileName = tab.getTitle();
+        this.label = new JLabel(fileName);
         this.closeButton = new CloseTabButton(tabbedPane, tab);
         super.setLayout(new FlowLayout(FlowLayout.LEFT, 0, 0));
         super.setOpaque(false);
@@ -28,16 +30,15 @@ public class TabHead extends JPanel {
         super.add(closeButton);
     }
 
-    public void contentChanged() {
-        if (!fileChanged) {
-            label.setText(label.getText() + "*");
-            fileChanged = true;
-        }
+    // With a * while the text isn't as it was saved.
+    public void setChanged(boolean changed) {
+        fileChanged = changed;
+        label.setText(changed ? fileName + "*" : fileName);
     }
 
     public void setFileName(String name) {
-        this.label.setText(name);
-        fileChanged = false;
+        fileName = name;
+        setChanged(fileChanged);
     }
 
     public boolean hasChange() {